@@ -16,6 +16,9 @@ export default class WebSocketListener {
     activeMatch: Match | null = null
     lastSetRound: number = 1
     stream: boolean = false
+    // Set when the server announces that each message holds several
+    // length-prefixed events (bc.server.stream-batch-size)
+    batched: boolean = false
     constructor(
         private shouldStream: boolean,
         readonly onGameCreated: (game: Game) => void,
@@ -40,10 +43,17 @@ export default class WebSocketListener {
         const ws = new WebSocket(this.url)
         ws.binaryType = 'arraybuffer'
         ws.onopen = (event) => {
+            this.batched = false
             console.log(`Connected to ${this.url}`)
         }
         ws.onmessage = (event) => {
-            this.handleEvent(<ArrayBuffer>event.data)
+            if (typeof event.data === 'string') {
+                this.batched = event.data === 'batched'
+            } else if (this.batched) {
+                this.handleBatch(<ArrayBuffer>event.data)
+            } else {
+                this.handleEvent(<ArrayBuffer>event.data)
+            }
         }
         ws.onerror = (event) => {
             this.reset()
@@ -72,6 +82,17 @@ export default class WebSocketListener {
         window.requestAnimationFrame(() => this.visualUpdate())
     }
 
+    private handleBatch(data: ArrayBuffer) {
+        const view = new DataView(data)
+        let offset = 0
+        while (offset < data.byteLength) {
+            const length = view.getUint32(offset, true)
+            offset += 4
+            this.handleEvent(data.slice(offset, offset + length))
+            offset += length
+        }
+    }
+
     private handleEvent(data: ArrayBuffer) {
         const event = schema.EventWrapper.getRootAsEventWrapper(new flatbuffers.ByteBuffer(new Uint8Array(data)))
         const eventType = event.eType()
@@ -0,0 +1,117 @@
+package battlecode.bench;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.common.UnitType;
+import battlecode.server.Config;
+import battlecode.server.GameInfo;
+import battlecode.server.GameMaker;
+import battlecode.world.GameWorld;
+import battlecode.world.InternalRobot;
+import battlecode.world.TestMapBuilder;
+import battlecode.world.control.RobotControlProvider;
+
+/**
+ * Builds worlds for the benchmarks to run against, the way the engine tests
+ * do with TestMapBuilder, but recording into a real GameMaker.
+ */
+public final class BenchWorlds {
+
+    public static final int SEED = 1337;
+
+    private BenchWorlds() {}
+
+    /**
+     * @return a game info for a game nobody plays
+     */
+    public static GameInfo gameInfo() {
+        return new GameInfo(
+                "benchA", "benchA", null,
+                "benchB", "benchB", null,
+                new String[] {"bench"}, null, false
+        );
+    }
+
+    /**
+     * @return a GameMaker whose game header has been written, ready for a match
+     */
+    public static GameMaker gameMaker(boolean deltaTurns) {
+        Config options = new Config(new String[] {"-c=-"});
+        options.setBoolean("bc.engine.show-indicators", false);
+        options.setBoolean("bc.engine.delta-turns", deltaTurns);
+        GameMaker gm = new GameMaker(gameInfo(), null, options);
+        gm.makeGameHeader();
+        return gm;
+    }
+
+    /**
+     * @return an empty square world, with no robots and no paint
+     */
+    public static GameWorld emptyWorld(int size) {
+        return new GameWorld(new TestMapBuilder("bench", 0, 0, size, size, SEED).build(),
+                new IdleControlProvider(), gameMaker(false).getMatchMaker());
+    }
+
+    /**
+     * @return a square world with soldiers of both teams on every fourth tile
+     */
+    public static GameWorld crowdedWorld(int size) {
+        GameWorld world = emptyWorld(size);
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if ((x + y) % 4 == 0) {
+                    world.spawnRobot(UnitType.SOLDIER, new MapLocation(x, y), (x + y) % 8 == 0 ? Team.A : Team.B);
+                }
+            }
+        }
+        return world;
+    }
+
+    /**
+     * Paint every tile of a world with a team's primary paint.
+     */
+    public static void paintAll(GameWorld world, Team team) {
+        int paint = world.getPrimaryPaint(team);
+        for (int x = 0; x < world.getGameMap().getWidth(); x++) {
+            for (int y = 0; y < world.getGameMap().getHeight(); y++) {
+                world.setPaint(new MapLocation(x, y), paint);
+            }
+        }
+    }
+
+    /**
+     * A control provider for robots that never get a turn.
+     */
+    public static class IdleControlProvider implements RobotControlProvider {
+        @Override
+        public void matchStarted(GameWorld world) {}
+
+        @Override
+        public void matchEnded() {}
+
+        @Override
+        public void roundStarted() {}
+
+        @Override
+        public void roundEnded() {}
+
+        @Override
+        public void robotSpawned(InternalRobot robot) {}
+
+        @Override
+        public void robotKilled(InternalRobot robot) {}
+
+        @Override
+        public void runRobot(InternalRobot robot) {}
+
+        @Override
+        public int getBytecodesUsed(InternalRobot robot) {
+            return 0;
+        }
+
+        @Override
+        public boolean getTerminated(InternalRobot robot) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package battlecode.bench;
+
+import battlecode.common.GameConstants;
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.world.GameWorld;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Map queries that robot actions run on the GameWorld.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameWorldBenchmark {
+
+    @Param({"20", "40", "60"})
+    public int mapSize;
+
+    private GameWorld world;
+    private MapLocation center;
+    private MapLocation corner;
+    private MapLocation oppositeCorner;
+
+    @Setup
+    public void setUp() {
+        world = BenchWorlds.emptyWorld(mapSize);
+        center = new MapLocation(mapSize / 2, mapSize / 2);
+        corner = new MapLocation(0, 0);
+        oppositeCorner = new MapLocation(mapSize - 1, mapSize - 1);
+
+        // Paint the whole map so that connectedByPaint has to search all of
+        // it, and the middle with a resource pattern so that checkPattern
+        // has to check every tile of it
+        BenchWorlds.paintAll(world, Team.A);
+        int primary = world.getPrimaryPaint(Team.A);
+        int secondary = world.getSecondaryPaint(Team.A);
+        for (int dx = -GameConstants.PATTERN_SIZE / 2; dx <= GameConstants.PATTERN_SIZE / 2; dx++) {
+            for (int dy = -GameConstants.PATTERN_SIZE / 2; dy <= GameConstants.PATTERN_SIZE / 2; dy++) {
+                world.setPaint(center.translate(dx, dy), world.getResourcePatternBit(dx, dy) == 1 ? secondary : primary);
+            }
+        }
+        if (!world.checkResourcePattern(Team.A, center)) {
+            throw new IllegalStateException("resource pattern wasn't painted");
+        }
+    }
+
+    @Benchmark
+    public MapLocation[] getAllLocationsWithinRadiusSquared() {
+        return world.getAllLocationsWithinRadiusSquared(center, GameConstants.VISION_RADIUS_SQUARED);
+    }
+
+    @Benchmark
+    public boolean checkPattern() {
+        return world.checkResourcePattern(Team.A, center);
+    }
+
+    @Benchmark
+    public boolean connectedByPaint() {
+        return world.connectedByPaint(Team.A, corner, oppositeCorner);
+    }
+}
@@ -0,0 +1,62 @@
+package battlecode.bench;
+
+import battlecode.common.MapLocation;
+import battlecode.server.GameMaker;
+import battlecode.world.TestMapBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding robot turns into the replay. Each invocation records a round of
+ * TURNS turns, and the time is reported per turn.
+ *
+ * The replay keeps growing as rounds are recorded, so every iteration starts
+ * a new game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class MatchMakerBenchmark {
+
+    private static final int TURNS = 100;
+
+    @Param({"false", "true"})
+    public boolean deltaTurns;
+
+    private GameMaker.MatchMaker matchMaker;
+    private MapLocation[] locations;
+    private int round;
+
+    @Setup
+    public void setUpLocations() {
+        locations = new MapLocation[TURNS];
+        for (int i = 0; i < TURNS; i++) {
+            locations[i] = new MapLocation(i % 20, i / 20);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpMatch() {
+        matchMaker = BenchWorlds.gameMaker(deltaTurns).getMatchMaker();
+        matchMaker.makeMatchHeader(new TestMapBuilder("bench", 0, 0, 20, 20, BenchWorlds.SEED).build());
+        round = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TURNS)
+    public void endTurn() {
+        round++;
+        matchMaker.startRound(round);
+        for (int id = 0; id < TURNS; id++) {
+            matchMaker.startTurn(id);
+            // cooldowns change every round and the rest only sometimes, like real robots
+            matchMaker.endTurn(id, 100, 200 - round % 50, round % 2 * 10, round % 3 * 10,
+                    1000 + (round * 7 + id) % 5000, locations[(id + round / 10) % TURNS]);
+        }
+        matchMaker.endRound();
+    }
+}
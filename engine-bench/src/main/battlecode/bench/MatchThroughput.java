@@ -0,0 +1,242 @@
+package battlecode.bench;
+
+import battlecode.server.Config;
+import battlecode.server.GameInfo;
+import battlecode.server.ReplayReader;
+import battlecode.server.Server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plays fixed pairings of the example bots on the default maps, headlessly
+ * and in this JVM, and reports how fast the engine gets through them.
+ * <p/>
+ * Usage:<br>
+ * <code>java battlecode.bench.MatchThroughput ${bot classes} ${output.json} [${runs}] [${warmup runs}] [${maps}]</code><br>
+ * Every pairing is played on every map (comma separated, DefaultSmall to
+ * DefaultHuge by default) warmup + runs times, and only the last runs are
+ * measured. Each measured run is written to the output as JSON, along with
+ * the median of each map and pairing. Engine options can be given with -D as
+ * usual.
+ * <p/>
+ * For every run this reports rounds and robot turns per second of wall time,
+ * CPU time per turn of the engine's thread (player code runs on the robots'
+ * threads and isn't included) and of the whole process, bytes allocated per
+ * second, and the peak heap usage, summed over the heap's memory pools. Wall
+ * time includes writing the replay.
+ */
+public class MatchThroughput {
+
+    public static final String[] DEFAULT_MAPS = {"DefaultSmall", "DefaultMedium", "DefaultLarge", "DefaultHuge"};
+
+    /**
+     * The pairings to play, as {team A, team B}. Both orders are played,
+     * since team A's robots move first.
+     */
+    public static final String[][] PAIRINGS = {
+            {"examplefuncsplayer", "attacc"},
+            {"attacc", "examplefuncsplayer"},
+    };
+
+    private static final String[] FIELDS = {
+            "rounds", "turns", "wallNanos", "roundsPerSecond", "turnsPerSecond", "engineCpuNanosPerTurn",
+            "processCpuNanosPerTurn", "allocatedBytes", "allocatedBytesPerSecond", "peakHeapBytes", "replayBytes"
+    };
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 5) {
+            System.err.println("Usage: battlecode.bench.MatchThroughput ${bot classes} ${output.json} " +
+                    "[${runs}] [${warmup runs}] [${maps}]");
+            System.exit(1);
+        }
+        String bots = args[0];
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int warmupRuns = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        String[] maps = args.length > 4 ? args[4].split(",") : DEFAULT_MAPS;
+
+        if (!new File(bots).isDirectory()) {
+            System.err.println("Not a directory: " + bots);
+            System.exit(1);
+        }
+
+        Config options = new Config(new String[] {"-c=-"});
+        options.set("bc.server.mode", "headless");
+        options.setBoolean("bc.server.websocket", false);
+        options.setBoolean("bc.server.robot-player-to-system-out", false);
+        Config.setGlobalConfig(options);
+
+        List<Result> results = new ArrayList<>();
+        try {
+            for (String map : maps) {
+                for (String[] pairing : PAIRINGS) {
+                    for (int run = -warmupRuns; run < runs; run++) {
+                        Result result = runGame(options, bots, map, pairing[0], pairing[1]);
+                        String label = run < 0 ? "warmup " + (run + warmupRuns + 1) : "run " + (run + 1);
+                        System.err.println(String.format(Locale.ROOT,
+                                "%s %s vs %s, %s: %d rounds, %.1f rounds/s, %.0f turns/s, %.0f engine ns/turn",
+                                map, pairing[0], pairing[1], label,
+                                (long) result.values[0], result.values[3], result.values[4], result.values[5]));
+                        if (run >= 0) {
+                            results.add(result);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Can't read replay: " + e.getMessage());
+            System.exit(1);
+        }
+
+        try (PrintStream out = new PrintStream(args[1])) {
+            out.println(toJson(results, runs, warmupRuns));
+        } catch (IOException e) {
+            System.err.println("Can't write output: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Play one game of one map and measure it.
+     */
+    public static Result runGame(Config options, String bots, String map, String teamA, String teamB)
+            throws IOException {
+        File replay = File.createTempFile("throughput", ".bc25");
+        replay.deleteOnExit();
+
+        Server server = new Server(options, false);
+        server.addGameNotification(new GameInfo(
+                teamA, teamA, bots,
+                teamB, teamB, bots,
+                new String[] {map},
+                replay,
+                false
+        ));
+        server.terminateNotification();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+
+        // Start every run from the same, clean heap
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long startWall = System.nanoTime();
+        long startEngineCpu = threads.getCurrentThreadCpuTime();
+        long startProcessCpu = os.getProcessCpuTime();
+        long startAllocated = allocations.getTotalThreadAllocatedBytes();
+
+        // The server runs the game on this thread
+        server.run();
+
+        long wall = System.nanoTime() - startWall;
+        long engineCpu = threads.getCurrentThreadCpuTime() - startEngineCpu;
+        long processCpu = os.getProcessCpuTime() - startProcessCpu;
+        long allocated = allocations.getTotalThreadAllocatedBytes() - startAllocated;
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+
+        int rounds;
+        long[] turns = new long[1];
+        try (ReplayReader reader = new ReplayReader(replay)) {
+            rounds = reader.getMatchFooter(0).totalRounds();
+            reader.forEachRound(0, (round) -> turns[0] += round.turnsLength());
+        }
+        long replayBytes = replay.length();
+        replay.delete();
+
+        double seconds = wall / 1e9;
+        return new Result(map, teamA, teamB, new double[] {
+                rounds, turns[0], wall, rounds / seconds, turns[0] / seconds,
+                engineCpu / (double) turns[0], processCpu / (double) turns[0],
+                allocated, allocated / seconds, peakHeap, replayBytes
+        });
+    }
+
+    /**
+     * The measurements of one game, in the order of FIELDS.
+     */
+    public static class Result {
+        public final String map;
+        public final String teamA;
+        public final String teamB;
+        public final double[] values;
+
+        public Result(String map, String teamA, String teamB, double[] values) {
+            this.map = map;
+            this.teamA = teamA;
+            this.teamB = teamB;
+            this.values = values;
+        }
+    }
+
+    private static String toJson(List<Result> results, int runs, int warmupRuns) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"javaVersion\":\"").append(System.getProperty("java.version")).append('"');
+        json.append(",\"processors\":").append(Runtime.getRuntime().availableProcessors());
+        json.append(",\"runs\":").append(runs);
+        json.append(",\"warmupRuns\":").append(warmupRuns);
+
+        json.append(",\"results\":[");
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendResult(json, results.get(i), results.get(i).values);
+        }
+
+        // The median of every field over the runs of each map and pairing
+        json.append("],\"medians\":[");
+        for (int i = 0; i < results.size(); i += runs) {
+            double[] medians = new double[FIELDS.length];
+            for (int f = 0; f < FIELDS.length; f++) {
+                double[] values = new double[runs];
+                for (int r = 0; r < runs; r++) {
+                    values[r] = results.get(i + r).values[f];
+                }
+                Arrays.sort(values);
+                medians[f] = runs % 2 == 1 ? values[runs / 2] : (values[runs / 2 - 1] + values[runs / 2]) / 2;
+            }
+            if (i > 0) {
+                json.append(',');
+            }
+            appendResult(json, results.get(i), medians);
+        }
+        json.append("]}");
+        return json.toString();
+    }
+
+    private static void appendResult(StringBuilder json, Result result, double[] values) {
+        json.append("{\"map\":\"").append(result.map);
+        json.append("\",\"teamA\":\"").append(result.teamA);
+        json.append("\",\"teamB\":\"").append(result.teamB).append('"');
+        for (int f = 0; f < FIELDS.length; f++) {
+            json.append(",\"").append(FIELDS[f]).append("\":");
+            if (values[f] == Math.rint(values[f])) {
+                json.append((long) values[f]);
+            } else {
+                json.append(String.format(Locale.ROOT, "%.2f", values[f]));
+            }
+        }
+        json.append('}');
+    }
+}
@@ -0,0 +1,276 @@
+package battlecode.bench;
+
+import battlecode.common.*;
+import battlecode.instrumenter.bytecode.MethodCostUtil;
+import battlecode.world.GameWorld;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures how long RobotController methods really take, and compares that
+ * with the bytecodes MethodCosts.txt charges for them.
+ * <p/>
+ * Usage:<br>
+ * <code>java battlecode.bench.MethodCostCalibration ${output.csv} [${map sizes}] [${ns per bytecode}] [${outlier factor}]</code><br>
+ * Every method is called from a soldier in the middle of a crowded map of
+ * each size (comma separated, 20,40,60 by default; see
+ * BenchWorlds.crowdedWorld) until the JIT has warmed up, and the median time
+ * of a call is taken over batches of calls. Only methods that leave the world
+ * alone are measured: queries and can* checks, not actions.
+ * <p/>
+ * Charged bytecodes are turned into time with an exchange rate of
+ * nanoseconds per bytecode, by default the median over all methods of their
+ * time divided by their charge, where the time of a method is its time on
+ * the map size it is slowest on. The suggested cost of a method is its time
+ * at that rate. Methods whose time is
+ * more than the outlier factor (4 by default) away from their charge are
+ * flagged as underpriced or overpriced. The results are written to the output
+ * as CSV, and the flagged methods are listed on the console.
+ */
+public class MethodCostCalibration {
+
+    public static final int[] DEFAULT_MAP_SIZES = {20, 40, 60};
+
+    private static final String ROBOT_CONTROLLER = "battlecode/common/RobotController";
+
+    /**
+     * The minimum time of a batch of calls, so that the timer's resolution
+     * doesn't matter.
+     */
+    private static final long MIN_BATCH_NANOS = 1_000_000;
+
+    private static final int WARMUP_BATCHES = 20;
+
+    private static final int MEASURED_BATCHES = 25;
+
+    /**
+     * Where results go so that the JIT can't skip calls. The volatile write
+     * costs far less than any of the calls measured.
+     */
+    private static volatile Object sink;
+
+    /**
+     * A call to measure, made by a soldier in the middle of the map.
+     */
+    private interface Call {
+        Object call(RobotController rc, Targets targets) throws GameActionException;
+    }
+
+    /**
+     * Locations around the calling robot.
+     */
+    private static class Targets {
+        /** An empty tile in range. */
+        final MapLocation empty;
+        /** A tile with an ally on it. */
+        final MapLocation ally;
+        /** A tile with an enemy on it. */
+        final MapLocation enemy;
+        final int enemyID;
+        /** Arrays for the packed sensing methods, reused like a bot would. */
+        final int[] tiles = new int[PackedInfo.MAX_TILES];
+        final int[] robots = new int[PackedInfo.ROBOT_ARRAY_LENGTH];
+
+        Targets(GameWorld world, MapLocation center) {
+            this.empty = center.translate(1, 1);
+            this.ally = center.translate(2, -2);
+            this.enemy = center.translate(2, 2);
+            this.enemyID = world.getRobot(enemy).getID();
+        }
+    }
+
+    private static final Map<String, Call> CALLS = new LinkedHashMap<>();
+
+    static {
+        CALLS.put("getRoundNum", (rc, t) -> rc.getRoundNum());
+        CALLS.put("getMapWidth", (rc, t) -> rc.getMapWidth());
+        CALLS.put("getMapHeight", (rc, t) -> rc.getMapHeight());
+        CALLS.put("getResourcePattern", (rc, t) -> rc.getResourcePattern());
+        CALLS.put("getTowerPattern", (rc, t) -> rc.getTowerPattern(UnitType.LEVEL_ONE_PAINT_TOWER));
+        CALLS.put("getID", (rc, t) -> rc.getID());
+        CALLS.put("getTeam", (rc, t) -> rc.getTeam());
+        CALLS.put("getLocation", (rc, t) -> rc.getLocation());
+        CALLS.put("getHealth", (rc, t) -> rc.getHealth());
+        CALLS.put("getPaint", (rc, t) -> rc.getPaint());
+        CALLS.put("getMoney", (rc, t) -> rc.getMoney());
+        CALLS.put("getChips", (rc, t) -> rc.getChips());
+        CALLS.put("getType", (rc, t) -> rc.getType());
+        CALLS.put("getNumberTowers", (rc, t) -> rc.getNumberTowers());
+        CALLS.put("onTheMap", (rc, t) -> rc.onTheMap(t.empty));
+        CALLS.put("canSenseLocation", (rc, t) -> rc.canSenseLocation(t.empty));
+        CALLS.put("isLocationOccupied", (rc, t) -> rc.isLocationOccupied(t.enemy));
+        CALLS.put("canSenseRobotAtLocation", (rc, t) -> rc.canSenseRobotAtLocation(t.enemy));
+        CALLS.put("senseRobotAtLocation", (rc, t) -> rc.senseRobotAtLocation(t.enemy));
+        CALLS.put("canSenseRobot", (rc, t) -> rc.canSenseRobot(t.enemyID));
+        CALLS.put("senseRobot", (rc, t) -> rc.senseRobot(t.enemyID));
+        CALLS.put("senseNearbyRobots", (rc, t) -> rc.senseNearbyRobots());
+        CALLS.put("sensePassability", (rc, t) -> rc.sensePassability(t.empty));
+        CALLS.put("senseMapInfo", (rc, t) -> rc.senseMapInfo(t.empty));
+        CALLS.put("senseNearbyMapInfos", (rc, t) -> rc.senseNearbyMapInfos());
+        CALLS.put("senseNearbyTileData", (rc, t) -> rc.senseNearbyTileData(t.tiles));
+        CALLS.put("senseNearbyRobotData", (rc, t) -> rc.senseNearbyRobotData(t.robots));
+        CALLS.put("senseNearbyRuins", (rc, t) -> rc.senseNearbyRuins(-1));
+        CALLS.put("adjacentLocation", (rc, t) -> rc.adjacentLocation(Direction.NORTH));
+        CALLS.put("getAllLocationsWithinRadiusSquared",
+                (rc, t) -> rc.getAllLocationsWithinRadiusSquared(rc.getLocation(), GameConstants.VISION_RADIUS_SQUARED));
+        CALLS.put("isActionReady", (rc, t) -> rc.isActionReady());
+        CALLS.put("getActionCooldownTurns", (rc, t) -> rc.getActionCooldownTurns());
+        CALLS.put("isMovementReady", (rc, t) -> rc.isMovementReady());
+        CALLS.put("getMovementCooldownTurns", (rc, t) -> rc.getMovementCooldownTurns());
+        CALLS.put("canMove", (rc, t) -> rc.canMove(Direction.NORTHEAST));
+        CALLS.put("canBuildRobot", (rc, t) -> rc.canBuildRobot(UnitType.SOLDIER, t.empty));
+        CALLS.put("canMark", (rc, t) -> rc.canMark(t.empty));
+        CALLS.put("canRemoveMark", (rc, t) -> rc.canRemoveMark(t.empty));
+        CALLS.put("canMarkTowerPattern", (rc, t) -> rc.canMarkTowerPattern(UnitType.LEVEL_ONE_PAINT_TOWER, t.empty));
+        CALLS.put("canUpgradeTower", (rc, t) -> rc.canUpgradeTower(t.ally));
+        CALLS.put("canMarkResourcePattern", (rc, t) -> rc.canMarkResourcePattern(t.empty));
+        CALLS.put("canCompleteTowerPattern",
+                (rc, t) -> rc.canCompleteTowerPattern(UnitType.LEVEL_ONE_PAINT_TOWER, t.empty));
+        CALLS.put("canCompleteResourcePattern", (rc, t) -> rc.canCompleteResourcePattern(t.empty));
+        CALLS.put("canPaint", (rc, t) -> rc.canPaint(t.empty));
+        CALLS.put("canAttack", (rc, t) -> rc.canAttack(t.empty));
+        CALLS.put("canMopSwing", (rc, t) -> rc.canMopSwing(Direction.NORTH));
+        CALLS.put("canSendMessage", (rc, t) -> rc.canSendMessage(t.ally, 0));
+        CALLS.put("readMessages", (rc, t) -> rc.readMessages(-1));
+        CALLS.put("canTransferPaint", (rc, t) -> rc.canTransferPaint(t.ally, 1));
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 4) {
+            System.err.println("Usage: battlecode.bench.MethodCostCalibration ${output.csv} " +
+                    "[${map sizes}] [${ns per bytecode}] [${outlier factor}]");
+            System.exit(1);
+        }
+        int[] mapSizes = args.length > 1
+                ? Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray()
+                : DEFAULT_MAP_SIZES;
+        double outlierFactor = args.length > 3 ? Double.parseDouble(args[3]) : 4;
+
+        // method -> nanoseconds per call on each map size
+        Map<String, double[]> nanos = new LinkedHashMap<>();
+        for (String method : CALLS.keySet()) {
+            nanos.put(method, new double[mapSizes.length]);
+        }
+        // One unmeasured pass first, so that the first map size isn't measured
+        // while the JIT is still compiling the engine
+        for (int s = -1; s < mapSizes.length; s++) {
+            int size = mapSizes[Math.max(s, 0)];
+            GameWorld world = BenchWorlds.crowdedWorld(size);
+            int middle = size / 2 - (size / 2) % 4;
+            MapLocation center = new MapLocation(middle, middle);
+            RobotController rc = world.getRobot(center).getController();
+            Targets targets = new Targets(world, center);
+            for (Map.Entry<String, Call> entry : CALLS.entrySet()) {
+                double time = measure(rc, targets, entry.getValue());
+                if (s < 0) {
+                    continue;
+                }
+                nanos.get(entry.getKey())[s] = time;
+                System.err.println(String.format(Locale.ROOT, "%dx%d %s: %.1f ns",
+                        size, size, entry.getKey(), time));
+            }
+        }
+
+        List<Double> rates = new ArrayList<>();
+        for (Map.Entry<String, double[]> entry : nanos.entrySet()) {
+            int cost = chargedCost(entry.getKey());
+            if (cost > 0) {
+                rates.add(slowest(entry.getValue()) / cost);
+            }
+        }
+        rates.sort(null);
+        double nanosPerBytecode = args.length > 2
+                ? Double.parseDouble(args[2])
+                : rates.get(rates.size() / 2);
+
+        List<String> flagged = new ArrayList<>();
+        try (PrintStream out = new PrintStream(args[0])) {
+            out.print("method,chargedBytecodes");
+            for (int size : mapSizes) {
+                out.print(",nanos" + size + "x" + size);
+            }
+            out.println(",suggestedBytecodes,timeToCharge,status");
+            for (Map.Entry<String, double[]> entry : nanos.entrySet()) {
+                String method = entry.getKey();
+                int cost = chargedCost(method);
+                double time = slowest(entry.getValue());
+                int suggested = (int) Math.max(1, Math.round(time / nanosPerBytecode));
+                // how many times more the call takes than its charge pays for
+                double timeToCharge = time / (Math.max(cost, 1) * nanosPerBytecode);
+                String status = timeToCharge > outlierFactor ? "underpriced"
+                        : cost > 0 && timeToCharge < 1 / outlierFactor ? "overpriced" : "ok";
+
+                out.print(method + "," + cost);
+                for (double value : entry.getValue()) {
+                    out.print(String.format(Locale.ROOT, ",%.1f", value));
+                }
+                out.println(String.format(Locale.ROOT, ",%d,%.2f,%s", suggested, timeToCharge, status));
+                if (!status.equals("ok")) {
+                    flagged.add(String.format(Locale.ROOT, "%-36s %-11s charged %4d, takes %9.1f ns, suggest %d",
+                            method, status, cost, time, suggested));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Can't write output: " + e.getMessage());
+            System.exit(1);
+        }
+
+        System.err.println(String.format(Locale.ROOT, "%.2f ns per bytecode; %d of %d methods are more than %.1fx off:",
+                nanosPerBytecode, flagged.size(), nanos.size(), outlierFactor));
+        flagged.forEach(System.err::println);
+        System.err.println("Written to " + args[0]);
+    }
+
+    private static double slowest(double[] nanos) {
+        return Arrays.stream(nanos).max().getAsDouble();
+    }
+
+    /**
+     * @return the bytecodes MethodCosts.txt charges for a RobotController method
+     */
+    private static int chargedCost(String method) {
+        MethodCostUtil.MethodData data = MethodCostUtil.getMethodData(ROBOT_CONTROLLER, method);
+        return data == null ? 0 : data.cost;
+    }
+
+    /**
+     * @return the median time of a call, in nanoseconds
+     */
+    private static double measure(RobotController rc, Targets targets, Call call) {
+        int batch = 1;
+        while (timeBatch(rc, targets, call, batch) < MIN_BATCH_NANOS) {
+            batch *= 2;
+        }
+        for (int i = 0; i < WARMUP_BATCHES; i++) {
+            timeBatch(rc, targets, call, batch);
+        }
+        double[] samples = new double[MEASURED_BATCHES];
+        for (int i = 0; i < MEASURED_BATCHES; i++) {
+            samples[i] = timeBatch(rc, targets, call, batch) / (double) batch;
+        }
+        Arrays.sort(samples);
+        return samples[MEASURED_BATCHES / 2];
+    }
+
+    /**
+     * @return the time taken by a batch of calls, in nanoseconds
+     */
+    private static long timeBatch(RobotController rc, Targets targets, Call call, int batch) {
+        long start = System.nanoTime();
+        for (int i = 0; i < batch; i++) {
+            try {
+                sink = call.call(rc, targets);
+            } catch (GameActionException e) {
+                sink = e;
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
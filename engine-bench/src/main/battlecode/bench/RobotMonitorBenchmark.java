@@ -0,0 +1,37 @@
+package battlecode.bench;
+
+import battlecode.instrumenter.inject.RobotMonitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bytecode counting the instrumenter adds to the end of every basic block
+ * of player code. The robot never really pauses, so running out of bytecodes
+ * just refills them, once per BYTECODE_LIMIT / BLOCK_BYTECODES calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RobotMonitorBenchmark {
+
+    private static final int BYTECODE_LIMIT = 17500;
+    private static final int BLOCK_BYTECODES = 7;
+
+    @Setup
+    public void setUp() {
+        RobotMonitor.init(() -> {}, () -> {
+            throw new IllegalStateException("the benchmark robot shouldn't be killed");
+        }, BenchWorlds.SEED, null);
+        RobotMonitor.setBytecodeLimit(BYTECODE_LIMIT);
+        RobotMonitor.reactivate();
+    }
+
+    @Benchmark
+    public void incrementBytecodes() {
+        RobotMonitor.incrementBytecodes(BLOCK_BYTECODES);
+    }
+}
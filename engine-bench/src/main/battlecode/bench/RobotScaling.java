@@ -0,0 +1,145 @@
+package battlecode.bench;
+
+import battlecode.server.Config;
+import battlecode.server.GameInfo;
+import battlecode.server.Server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * Plays the stress bot against itself and shows how the time each round
+ * takes grows with the number of live robots.
+ * <p/>
+ * Usage:<br>
+ * <code>java battlecode.bench.RobotScaling ${bot classes} ${output dir} [${maps}] [${bucket size}] [${skipped rounds}]</code><br>
+ * The games are played with bc.engine.phase-timings, which writes the time
+ * spent in every round, and the number of robots alive at its start, next
+ * to the replay (see PhaseTimer). Rounds are then grouped by robot count
+ * into buckets (of 10 robots by default), skipping the first rounds of each
+ * match (100 by default) while the JIT warms up. The mean round time and
+ * engine time (everything but player code) of each bucket are written to
+ * robot-scaling.csv in the output directory, and plotted on the console.
+ */
+public class RobotScaling {
+
+    public static final String[] DEFAULT_MAPS = {"DefaultMedium", "DefaultHuge"};
+
+    public static final String BOT = "stressbot";
+
+    private static final int PLOT_WIDTH = 60;
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 5) {
+            System.err.println("Usage: battlecode.bench.RobotScaling ${bot classes} ${output dir} " +
+                    "[${maps}] [${bucket size}] [${skipped rounds}]");
+            System.exit(1);
+        }
+        String bots = args[0];
+        File outputDir = new File(args[1]);
+        String[] maps = args.length > 2 ? args[2].split(",") : DEFAULT_MAPS;
+        int bucketSize = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int skippedRounds = args.length > 4 ? Integer.parseInt(args[4]) : 100;
+
+        if (!new File(bots, BOT).isDirectory()) {
+            System.err.println("No " + BOT + " in " + bots);
+            System.exit(1);
+        }
+        outputDir.mkdirs();
+
+        Config options = new Config(new String[] {"-c=-"});
+        options.set("bc.server.mode", "headless");
+        options.setBoolean("bc.server.websocket", false);
+        options.setBoolean("bc.server.robot-player-to-system-out", false);
+        options.setBoolean("bc.engine.phase-timings", true);
+        Config.setGlobalConfig(options);
+
+        // robot count bucket -> {rounds, total round nanos, total engine nanos}
+        TreeMap<Integer, long[]> buckets = new TreeMap<>();
+        try {
+            for (String map : maps) {
+                File replay = new File(outputDir, map + ".bc25");
+                Server server = new Server(options, false);
+                server.addGameNotification(new GameInfo(
+                        BOT, BOT, bots,
+                        BOT, BOT, bots,
+                        new String[] {map},
+                        replay,
+                        false
+                ));
+                server.terminateNotification();
+                server.run();
+
+                File rounds = new File(outputDir, map + "-match0-rounds.csv");
+                addRounds(Files.readAllLines(rounds.toPath()), bucketSize, skippedRounds, buckets);
+            }
+        } catch (IOException e) {
+            System.err.println("Can't read round timings: " + e.getMessage());
+            System.exit(1);
+        }
+
+        File output = new File(outputDir, "robot-scaling.csv");
+        try (PrintStream out = new PrintStream(output)) {
+            out.println("robots,rounds,meanRoundMillis,meanEngineMillis,meanRoundMicrosPerRobot");
+            for (int bucket : buckets.keySet()) {
+                long[] totals = buckets.get(bucket);
+                double robots = bucket + (bucketSize - 1) / 2.0;
+                out.println(String.format(Locale.ROOT, "%d,%d,%.3f,%.3f,%.2f", bucket, totals[0],
+                        totals[1] / 1e6 / totals[0], totals[2] / 1e6 / totals[0], totals[1] / 1e3 / totals[0] / robots));
+            }
+        } catch (IOException e) {
+            System.err.println("Can't write output: " + e.getMessage());
+            System.exit(1);
+        }
+
+        plot(buckets, bucketSize);
+        System.err.println("Written to " + output);
+    }
+
+    /**
+     * Add the rounds of a CSV file written by PhaseTimer.writeRoundsCsv to
+     * the buckets of their robot counts.
+     */
+    private static void addRounds(List<String> lines, int bucketSize, int skippedRounds,
+                                  TreeMap<Integer, long[]> buckets) {
+        List<String> header = List.of(lines.get(0).split(","));
+        int robotsColumn = header.indexOf("robots");
+        int roundColumn = header.indexOf("roundNanos");
+        int robotCodeColumn = header.indexOf("robotCodeNanos");
+        for (String line : lines.subList(Math.min(1 + skippedRounds, lines.size()), lines.size())) {
+            String[] fields = line.split(",");
+            int robots = Integer.parseInt(fields[robotsColumn]);
+            long round = Long.parseLong(fields[roundColumn]);
+            long robotCode = Long.parseLong(fields[robotCodeColumn]);
+            long[] totals = buckets.computeIfAbsent(robots / bucketSize * bucketSize, (b) -> new long[3]);
+            totals[0]++;
+            totals[1] += round;
+            totals[2] += round - robotCode;
+        }
+    }
+
+    /**
+     * Plot the mean round time of each bucket, with the engine's share
+     * drawn with '#' and the players' with '='.
+     */
+    private static void plot(TreeMap<Integer, long[]> buckets, int bucketSize) {
+        double max = 0;
+        for (long[] totals : buckets.values()) {
+            max = Math.max(max, totals[1] / (double) totals[0]);
+        }
+        System.err.println("robots     rounds  ms/round");
+        for (int bucket : buckets.keySet()) {
+            long[] totals = buckets.get(bucket);
+            double round = totals[1] / (double) totals[0];
+            int width = (int) Math.round(PLOT_WIDTH * round / max);
+            int engineWidth = (int) Math.round(PLOT_WIDTH * totals[2] / (double) totals[0] / max);
+            System.err.println(String.format(Locale.ROOT, "%4d-%-4d %7d %9.3f %s%s", bucket, bucket + bucketSize - 1,
+                    totals[0], round / 1e6, "#".repeat(engineWidth), "=".repeat(Math.max(0, width - engineWidth))));
+        }
+    }
+}
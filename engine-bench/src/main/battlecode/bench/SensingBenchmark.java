@@ -0,0 +1,44 @@
+package battlecode.bench;
+
+import battlecode.common.MapInfo;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotController;
+import battlecode.common.RobotInfo;
+import battlecode.world.GameWorld;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sensing from a robot in the middle of a crowded map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SensingBenchmark {
+
+    @Param({"20", "40", "60"})
+    public int mapSize;
+
+    private RobotController rc;
+
+    @Setup
+    public void setUp() {
+        GameWorld world = BenchWorlds.crowdedWorld(mapSize);
+        int middle = mapSize / 2 - (mapSize / 2) % 4;
+        rc = world.getRobot(new MapLocation(middle, middle)).getController();
+    }
+
+    @Benchmark
+    public RobotInfo[] senseNearbyRobots() {
+        return rc.senseNearbyRobots();
+    }
+
+    @Benchmark
+    public MapInfo[] senseNearbyMapInfos() {
+        return rc.senseNearbyMapInfos();
+    }
+}
@@ -0,0 +1,93 @@
+package battlecode.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Plays the example bots headlessly, each match in its own JVM, so that
+ * matches can run in parallel and can't share any static state.
+ */
+final class ChildMatch {
+
+    private ChildMatch() {}
+
+    /**
+     * @return the directory of the example bots' classes, from bc.bench.bots
+     */
+    static String botClasses(String... teams) {
+        String bots = System.getProperty("bc.bench.bots", "../example-bots/build/classes");
+        for (String team : teams) {
+            // fail rather than skip, so that a missing bot can't pass for a green run
+            assertTrue("No " + team + " in " + bots + "; build the example bots or set bc.bench.bots",
+                    new File(bots, team).isDirectory());
+        }
+        return bots;
+    }
+
+    /**
+     * Play a match headlessly in a new JVM, failing if it takes longer than
+     * timeoutMinutes or doesn't write a replay.
+     *
+     * @param options more options for the JVM, e.g. -Dbc.engine.phase-timings=true
+     * @return the replay
+     */
+    static File play(String bots, File outputDir, String map, String teamA, String teamB,
+                     long timeoutMinutes, String... options) throws IOException, InterruptedException {
+        String name = map + "-" + teamA + "-" + teamB;
+        File replay = new File(outputDir, name + ".bc25");
+        File log = new File(outputDir, name + ".log");
+
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (arg.startsWith("--add-opens") || arg.startsWith("-Dbc.server.")) {
+                command.add(arg);
+            }
+        }
+        command.add("-Dbc.server.mode=headless");
+        command.add("-Dbc.server.websocket=false");
+        command.add("-Dbc.server.robot-player-to-system-out=false");
+        command.add("-Dbc.game.team-a=" + teamA);
+        command.add("-Dbc.game.team-a.url=" + bots);
+        command.add("-Dbc.game.team-a.package=" + teamA);
+        command.add("-Dbc.game.team-b=" + teamB);
+        command.add("-Dbc.game.team-b.url=" + bots);
+        command.add("-Dbc.game.team-b.package=" + teamB);
+        command.add("-Dbc.game.maps=" + map);
+        command.add("-Dbc.server.save-file=" + replay.getPath());
+        command.addAll(List.of(options));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("battlecode.server.Main");
+        command.add("-c=-");
+
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        if (!process.waitFor(timeoutMinutes, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            fail(name + " took longer than " + timeoutMinutes + " minutes");
+        }
+        assertEquals(name + " failed:\n" + Files.readString(log.toPath()), 0, process.exitValue());
+        assertTrue(name + " wrote no replay:\n" + Files.readString(log.toPath()), replay.isFile());
+        return replay;
+    }
+
+    /**
+     * Delete a directory of match output.
+     */
+    static void delete(File outputDir) {
+        for (File file : outputDir.listFiles()) {
+            file.delete();
+        }
+        outputDir.delete();
+    }
+}
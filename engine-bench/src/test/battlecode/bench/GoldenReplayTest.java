@@ -0,0 +1,141 @@
+package battlecode.bench;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the engine still plays the example bots exactly as it used
+ * to, so that changes meant only to make the engine faster can't change
+ * matches by accident.
+ * <p/>
+ * Every pairing of MatchThroughput is played on every default map, and the
+ * SHA-256 of each uncompressed replay is compared against the digests in
+ * golden-digests.txt. The maps carry their own seeds, so the matches are the
+ * same every time. Each match is played in its own JVM, so that matches can
+ * run in parallel (bc.golden.threads at a time, the number of processors by
+ * default) and can't share any static state.
+ * <p/>
+ * Run with bc.golden.update=true to write the digests of the current engine
+ * instead, after a change that is meant to change the replays.
+ */
+public class GoldenReplayTest {
+
+    /**
+     * How long a single match may take.
+     */
+    private static final long MATCH_TIMEOUT_MINUTES = 10;
+
+    @Test
+    public void testReplaysMatchGoldenDigests() throws Exception {
+        File digestsFile = new File(System.getProperty("bc.golden.digests",
+                "src/test/battlecode/bench/golden-digests.txt"));
+        boolean update = Boolean.getBoolean("bc.golden.update");
+        int threads = Integer.getInteger("bc.golden.threads", Runtime.getRuntime().availableProcessors());
+
+        List<String> teams = new ArrayList<>();
+        for (String[] pairing : MatchThroughput.PAIRINGS) {
+            teams.addAll(List.of(pairing));
+        }
+        String bots = ChildMatch.botClasses(teams.toArray(new String[0]));
+
+        File outputDir = Files.createTempDirectory("golden").toFile();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Map<String, Future<String>> digests = new LinkedHashMap<>();
+        try {
+            for (String map : MatchThroughput.DEFAULT_MAPS) {
+                for (String[] pairing : MatchThroughput.PAIRINGS) {
+                    String key = map + " " + pairing[0] + " " + pairing[1];
+                    digests.put(key, executor.submit(() -> playMatch(bots, outputDir, map, pairing[0], pairing[1])));
+                }
+            }
+
+            Map<String, String> actual = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<String>> entry : digests.entrySet()) {
+                actual.put(entry.getKey(), entry.getValue().get());
+            }
+
+            if (update) {
+                writeDigests(digestsFile, actual);
+                return;
+            }
+
+            Map<String, String> expected = readDigests(digestsFile);
+            List<String> mismatches = new ArrayList<>();
+            for (Map.Entry<String, String> entry : actual.entrySet()) {
+                String golden = expected.get(entry.getKey());
+                if (!entry.getValue().equals(golden)) {
+                    mismatches.add(entry.getKey() + ": expected " + golden + ", got " + entry.getValue());
+                }
+            }
+            assertTrue("Replays differ from " + digestsFile + " (rerun with -PupdateGolden if this is intended):\n"
+                    + String.join("\n", mismatches), mismatches.isEmpty());
+        } finally {
+            executor.shutdownNow();
+            ChildMatch.delete(outputDir);
+        }
+    }
+
+    /**
+     * Play a match headlessly in a new JVM.
+     *
+     * @return the SHA-256 of the uncompressed replay, in hex
+     */
+    private static String playMatch(String bots, File outputDir, String map, String teamA, String teamB)
+            throws IOException, InterruptedException, NoSuchAlgorithmException {
+        File replay = ChildMatch.play(bots, outputDir, map, teamA, teamB, MATCH_TIMEOUT_MINUTES);
+
+        // The replay may be several gzip members, which GZIPInputStream reads as one
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new DigestInputStream(new GZIPInputStream(Files.newInputStream(replay.toPath())), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Read digests written by writeDigests, as "map teamA teamB" to digest.
+     */
+    private static Map<String, String> readDigests(File file) throws IOException {
+        Map<String, String> digests = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file.toPath())) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int split = line.lastIndexOf(' ');
+            digests.put(line.substring(0, split), line.substring(split + 1));
+        }
+        return digests;
+    }
+
+    private static void writeDigests(File file, Map<String, String> digests) throws IOException {
+        try (PrintStream out = new PrintStream(file)) {
+            out.println("# SHA-256 of the uncompressed replay of each golden match, as");
+            out.println("# map teamA teamB digest");
+            out.println("# Written by GoldenReplayTest with bc.golden.update=true.");
+            for (Map.Entry<String, String> entry : digests.entrySet()) {
+                out.println(entry.getKey() + " " + entry.getValue());
+            }
+        }
+    }
+}
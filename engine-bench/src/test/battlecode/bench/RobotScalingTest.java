@@ -0,0 +1,48 @@
+package battlecode.bench;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the stress bot still grows to the hundreds of robots that
+ * RobotScaling needs to show how the engine scales.
+ */
+public class RobotScalingTest {
+
+    /**
+     * How long the match may take; every robot uses all of its bytecodes,
+     * so the last rounds are slow.
+     */
+    private static final long MATCH_TIMEOUT_MINUTES = 30;
+
+    /**
+     * The fewest robots, of both teams, that must be alive at once.
+     */
+    private static final int MIN_PEAK_ROBOTS = 500;
+
+    @Test
+    public void testStressBotReachesHundredsOfRobots() throws Exception {
+        String bots = ChildMatch.botClasses(RobotScaling.BOT);
+        File outputDir = Files.createTempDirectory("scaling").toFile();
+        try {
+            File replay = ChildMatch.play(bots, outputDir, "DefaultHuge", RobotScaling.BOT, RobotScaling.BOT,
+                    MATCH_TIMEOUT_MINUTES, "-Dbc.engine.phase-timings=true");
+            String name = replay.getName().substring(0, replay.getName().length() - ".bc25".length());
+            List<String> lines = Files.readAllLines(new File(outputDir, name + "-match0-rounds.csv").toPath());
+
+            int robotsColumn = List.of(lines.get(0).split(",")).indexOf("robots");
+            int peak = 0;
+            for (String line : lines.subList(1, lines.size())) {
+                peak = Math.max(peak, Integer.parseInt(line.split(",")[robotsColumn]));
+            }
+            assertTrue("Only " + peak + " robots alive at once", peak >= MIN_PEAK_ROBOTS);
+        } finally {
+            ChildMatch.delete(outputDir);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package battlecode.common;
+
+/**
+ * PackedInfo defines how RobotController.senseNearbyTileData and
+ * RobotController.senseNearbyRobotData pack what a robot senses into ints,
+ * which lets a robot sense its surroundings without creating any objects.
+ *
+ * A tile is packed into one int: its x and y coordinates, the ordinals of
+ * its paint and mark (the same PaintType values MapInfo would give), and
+ * flags for walls, ruins and passability. For example:
+ * <pre>
+ * int x = (tile &gt;&gt; PackedInfo.X_SHIFT) &amp; PackedInfo.COORDINATE_MASK;
+ * boolean enemyPaint = ((tile &gt;&gt; PackedInfo.TILE_PAINT_SHIFT) &amp; PackedInfo.PAINT_TYPE_MASK) &gt;= 3;
+ * boolean ruin = (tile &amp; PackedInfo.TILE_RUIN) != 0;
+ * </pre>
+ *
+ * A robot is packed into ROBOT_INTS consecutive ints: its ID, its location,
+ * team and type packed like a tile's location, its health and its paint.
+ */
+@SuppressWarnings("unused")
+public class PackedInfo {
+
+    // *********************************
+    // ****** LOCATIONS ****************
+    // *********************************
+
+    /** Where the x coordinate of a tile or robot starts. */
+    public static final int X_SHIFT = 0;
+
+    /** Where the y coordinate of a tile or robot starts. */
+    public static final int Y_SHIFT = 6;
+
+    /** The mask of a coordinate once shifted down. */
+    public static final int COORDINATE_MASK = 0x3F;
+
+    // *********************************
+    // ****** TILES ********************
+    // *********************************
+
+    /** The most tiles a robot can sense at once, and so the length tile arrays must have. */
+    public static final int MAX_TILES = 69;
+
+    /** Where the ordinal of a tile's paint starts. */
+    public static final int TILE_PAINT_SHIFT = 12;
+
+    /** Where the ordinal of a tile's mark starts. */
+    public static final int TILE_MARK_SHIFT = 15;
+
+    /** The mask of a paint or mark ordinal once shifted down. */
+    public static final int PAINT_TYPE_MASK = 0x7;
+
+    /** Set if the tile is a wall. */
+    public static final int TILE_WALL = 1 << 18;
+
+    /** Set if the tile has a ruin. */
+    public static final int TILE_RUIN = 1 << 19;
+
+    /** Set if the tile is passable. */
+    public static final int TILE_PASSABLE = 1 << 20;
+
+    // *********************************
+    // ****** ROBOTS *******************
+    // *********************************
+
+    /** The most other robots a robot can sense at once. */
+    public static final int MAX_ROBOTS = MAX_TILES - 1;
+
+    /** The number of ints each robot takes up. */
+    public static final int ROBOT_INTS = 4;
+
+    /** The length robot arrays must have. */
+    public static final int ROBOT_ARRAY_LENGTH = MAX_ROBOTS * ROBOT_INTS;
+
+    /** The offset of a robot's ID. */
+    public static final int ROBOT_ID = 0;
+
+    /** The offset of a robot's location, team and type. */
+    public static final int ROBOT_STATE = 1;
+
+    /** The offset of a robot's health. */
+    public static final int ROBOT_HEALTH = 2;
+
+    /** The offset of a robot's paint. */
+    public static final int ROBOT_PAINT = 3;
+
+    /** Set in a robot's state if it is on the sensing robot's team. */
+    public static final int ROBOT_ALLY = 1 << 12;
+
+    /** Where the ordinal of a robot's UnitType starts in its state. */
+    public static final int ROBOT_TYPE_SHIFT = 13;
+
+    /** The mask of a UnitType ordinal once shifted down. */
+    public static final int ROBOT_TYPE_MASK = 0x1F;
+}
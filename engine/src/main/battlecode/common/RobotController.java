@@ -385,6 +385,36 @@ public interface RobotController {
      */
     MapInfo[] senseNearbyMapInfos(MapLocation center, int radiusSquared) throws GameActionException;
 
+    /**
+     * Writes every tile within vision radius into the given array, one int
+     * per tile packed as described in PackedInfo, in order of x and then y.
+     * Unlike senseNearbyMapInfos, this creates no objects, so the same array
+     * can be reused every turn.
+     *
+     * @param tiles the array to write the tiles to, at least
+     *              PackedInfo.MAX_TILES long
+     * @return the number of tiles written
+     * @throws GameActionException if the array is null or too short
+     *
+     * @battlecode.doc.costlymethod
+     */
+    int senseNearbyTileData(int[] tiles) throws GameActionException;
+
+    /**
+     * Writes every other robot within vision radius into the given array,
+     * PackedInfo.ROBOT_INTS ints per robot packed as described in PackedInfo,
+     * in order of x and then y. Unlike senseNearbyRobots, this creates no
+     * objects, so the same array can be reused every turn.
+     *
+     * @param robots the array to write the robots to, at least
+     *               PackedInfo.ROBOT_ARRAY_LENGTH long
+     * @return the number of robots written
+     * @throws GameActionException if the array is null or too short
+     *
+     * @battlecode.doc.costlymethod
+     */
+    int senseNearbyRobotData(int[] robots) throws GameActionException;
+
     /**
      * Returns the location of all nearby ruins that are visible to the robot.
      * If radiusSquared is greater than the robot's vision radius, uses the robot's
@@ -3,14 +3,16 @@ package battlecode.instrumenter;
 import battlecode.common.RobotController;
 import battlecode.common.Team;
 import battlecode.instrumenter.profiler.Profiler;
+import battlecode.instrumenter.stream.ConsoleWriter;
+import battlecode.instrumenter.stream.OutputLimit;
 import battlecode.instrumenter.stream.RoboPrintStream;
 import battlecode.instrumenter.stream.SilencedPrintStream;
+import battlecode.jfr.SandboxCreationEvent;
 import battlecode.server.ErrorReporter;
 import battlecode.server.Config;
 
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -113,6 +115,33 @@ public class SandboxedRobotPlayer {
                                 OutputStream robotOut,
                                 Profiler profiler)
             throws InstrumentationException {
+        this(teamName, robotController, seed, loader, robotOut, new OutputLimit(Config.getGlobalConfig().getInt(
+                "bc.server.robot-player-replay-file-per-team-limit-bytes")), profiler);
+    }
+
+    /**
+     * Create a new sandboxed robot player.
+     *
+     * @param teamName          the name of the team to create a player for
+     * @param robotController   the robot we're loading a player for
+     * @param seed              the seed the robot should use for random operations
+     * @param loader            the classloader to load classes with
+     * @param robotOut          the output to write robot output to (with headers)
+     * @param outputLimit       the limit on robotOut shared by the robot's team
+     * @throws InstrumentationException if the player doesn't work for some reason
+     * @throws RuntimeException if our code fails for some reason
+     */
+    public SandboxedRobotPlayer(String teamName,
+                                RobotController robotController,
+                                int seed,
+                                TeamClassLoaderFactory.Loader loader,
+                                OutputStream robotOut,
+                                OutputLimit outputLimit,
+                                Profiler profiler)
+            throws InstrumentationException {
+        SandboxCreationEvent event = new SandboxCreationEvent();
+        event.begin();
+
         this.robotController = robotController;
         this.seed = seed;
         this.terminated = false;
@@ -142,7 +171,7 @@ public class SandboxedRobotPlayer {
             Class<?> system = individualLoader
                     .loadClass("battlecode.instrumenter.inject.System");
 
-            this.systemOut = getOut(robotOut);
+            this.systemOut = getOut(robotOut, outputLimit);
             system.getMethod("setSystemOut", PrintStream.class).invoke(null, this.systemOut);
 
         } catch (ReflectiveOperationException e) {
@@ -180,7 +209,9 @@ public class SandboxedRobotPlayer {
                 pauseMethod.invoke(null);
                 // Run the robot!
                 loadAndRunPlayer(teamName, PLAYER_CLASS_NAME);
-                // If we get here, we've returned from the 'run' method. Tell the user.
+                // If we get here, we've returned from the 'run' method. Tell the user,
+                // after the robot output that is still waiting to be written.
+                drainOut();
                 if (robotController.getLocation() != null){
                 System.out.println(robotController.getTeam().toString() + "'s " +
                         robotController.getID() + " at location " + robotController.getLocation().toString()
@@ -193,11 +224,13 @@ public class SandboxedRobotPlayer {
                         " because it returned from its run() method!");
                 }
             } catch (final IllegalAccessException e) {
+                drainOut();
                 ErrorReporter.report(e, true);
             } catch (final InvocationTargetException e) {
                 if (e.getCause() instanceof RobotDeathException) {
                     return;
                 }
+                drainOut();
                 ErrorReporter.report(e.getCause(), false);
             } catch (final InstrumentationException e) {
                 ErrorReporter.report(e,"Error instrumenting " + teamName + ".RobotPlayer:\n" +
@@ -236,6 +269,13 @@ public class SandboxedRobotPlayer {
         } catch (InterruptedException e) {
             throw new RuntimeException("Unexpected interruption initializing sandbox", e);
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.robotID = robotController.getID();
+            event.teamPackage = teamName;
+            event.commit();
+        }
     }
 
     /**
@@ -316,6 +356,9 @@ public class SandboxedRobotPlayer {
         } catch (InterruptedException e) {
             throw new RuntimeException("Unexpected interruption", e);
         }
+
+        // Write out what the robot printed this turn
+        flushOut();
     }
 
     /**
@@ -399,7 +442,7 @@ public class SandboxedRobotPlayer {
         void kill();
     }
 
-    public PrintStream getOut(OutputStream wrapped) {
+    public PrintStream getOut(OutputStream wrapped, OutputLimit outputLimit) {
         Config options = Config.getGlobalConfig();
 
         if (robotController.getTeam() == Team.A
@@ -409,13 +452,9 @@ public class SandboxedRobotPlayer {
             return SilencedPrintStream.theInstance();
             // Modifying Systems specific to this robot.
         } else {
-            try {
-                return new RoboPrintStream(wrapped, options.getBoolean(
-                        "bc.server.robot-player-to-system-out"
-                ), options.getInt("bc.server.robot-player-replay-file-per-team-limit-bytes"));
-            } catch (UnsupportedEncodingException e) {
-                throw new RuntimeException("UTF-8 isn't supported on this system??", e);
-            }
+            return new RoboPrintStream(wrapped, options.getBoolean(
+                    "bc.server.robot-player-to-system-out"
+            ), outputLimit);
         }
     }
 
@@ -433,4 +472,22 @@ public class SandboxedRobotPlayer {
             );
         }
     }
+
+    /**
+     * Write out the output the robot buffered during its turn.
+     */
+    private void flushOut() {
+        if (systemOut instanceof RoboPrintStream) {
+            ((RoboPrintStream) systemOut).flush();
+        }
+    }
+
+    /**
+     * Write out everything the robot has printed, so that it comes before
+     * a message about the robot, as it did when output wasn't buffered.
+     */
+    private void drainOut() {
+        flushOut();
+        ConsoleWriter.drainIfStarted();
+    }
 }
@@ -2,6 +2,7 @@ package battlecode.instrumenter;
 
 import battlecode.instrumenter.bytecode.ClassReferenceUtil;
 import battlecode.instrumenter.bytecode.InstrumentingClassVisitor;
+import battlecode.jfr.InstrumentationEvent;
 import battlecode.server.Config;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -113,6 +114,15 @@ public final class TeamClassLoaderFactory {
      */
     private final ClassReferenceUtil refUtil;
 
+    /**
+     * The names of the methods instrumented for the profiler, indexed by the
+     * frame id compiled into their calls to RobotMonitor.enterMethod/exitMethod.
+     * Ids are assigned at instrumentation time and kept as long as the cached
+     * classes are, so they stay valid across matches.
+     */
+    private final List<String> profilerFrames = new ArrayList<>();
+    private final Map<String, Integer> profilerFrameIds = new HashMap<>();
+
     /**
      * Create a cache for classes loaded from a URL (or local file).
      * The URL can point to a jar file or a directory containing class
@@ -185,6 +195,29 @@ public final class TeamClassLoaderFactory {
         this.instrumentedClasses.put(className, classBytes);
     }
 
+    /**
+     * @param methodName the fully qualified name of an instrumented method
+     * @return the profiler frame id of the method, assigning a new one
+     *         if it hasn't been seen before
+     */
+    public synchronized int getProfilerFrameId(String methodName) {
+        Integer frameId = profilerFrameIds.get(methodName);
+        if (frameId == null) {
+            frameId = profilerFrames.size();
+            profilerFrames.add(methodName);
+            profilerFrameIds.put(methodName, frameId);
+        }
+        return frameId;
+    }
+
+    /**
+     * @return the names of the methods instrumented for the profiler so far,
+     *         indexed by frame id
+     */
+    public synchronized List<String> getProfilerFrames() {
+        return new ArrayList<>(profilerFrames);
+    }
+
     /**
      * @return whether the team is known to have errors
      */
@@ -521,6 +554,8 @@ public final class TeamClassLoaderFactory {
         public byte[] instrument(ClassReader reader,
                                  boolean checkDisallowed,
                                  boolean debugMethodsEnabled) throws InstrumentationException {
+            InstrumentationEvent event = new InstrumentationEvent();
+            event.begin();
 
             ClassWriter cw = new ClassWriter(COMPUTE_MAXS); // passing true sets maxLocals and maxStack, so we don't have to
             ClassVisitor cv = new InstrumentingClassVisitor(
@@ -532,7 +567,16 @@ public final class TeamClassLoaderFactory {
                     profilerEnabled
             );
             reader.accept(cv, 0);        //passing false lets debug info be included in the transformation, so players get line numbers in stack traces
-            return cw.toByteArray();
+            byte[] instrumented = cw.toByteArray();
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.className = reader.getClassName().replace('/', '.');
+                event.teamClass = checkDisallowed;
+                event.instrumentedBytes = instrumented.length;
+                event.commit();
+            }
+            return instrumented;
         }
 
         @SuppressWarnings("unused")
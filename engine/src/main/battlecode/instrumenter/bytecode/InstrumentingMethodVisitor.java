@@ -53,6 +53,9 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
 
     private int bytecodeCtr = 0;
 
+    // the profiler frame id of this method, or -1 if not assigned yet
+    private int profilerFrameId = -1;
+
     private MethodVisitor methodWriter;
 
     public InstrumentingMethodVisitor(final MethodVisitor mv,
@@ -193,8 +196,27 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         return n;
     }
 
+    /**
+     * Whether calls to this method should be profiled. Methods of
+     * instrumented system classes are attributed to their caller.
+     */
+    private boolean isProfiled() {
+        return profilerEnabled && !className.startsWith("instrumented/");
+    }
+
+    /**
+     * @return the profiler frame id of this method, interned now so the
+     *         profiler doesn't have to look up the method on every call
+     */
+    private int profilerFrameId() {
+        if (profilerFrameId < 0) {
+            profilerFrameId = loader.getFactory().getProfilerFrameId(className.replace('/', '.') + "." + name);
+        }
+        return profilerFrameId;
+    }
+
     private void addEnterMethodHandler() {
-        if (!profilerEnabled) {
+        if (!isProfiled()) {
             return;
         }
 
@@ -205,28 +227,28 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                 INVOKESTATIC,
                 "battlecode/instrumenter/inject/RobotMonitor",
                 "enterMethod",
-                "(" + Type.getDescriptor(String.class) + ")V",
+                "(I)V",
                 false
             )
         );
         instructions.insertBefore(
             nextInstruction(instructions.getFirst()),
-            new LdcInsnNode(className.replaceAll("/", ".") + "." + name)
+            new LdcInsnNode(profilerFrameId())
         );
     }
 
     private void addExitMethodHandler(AbstractInsnNode n) {
-        if (!profilerEnabled) {
+        if (!isProfiled()) {
             return;
         }
 
         // call "exitMethod" at every exit point of a method (return, implicit return and throw)
-        instructions.insertBefore(n, new LdcInsnNode(className.replaceAll("/", ".") + "." + name));
+        instructions.insertBefore(n, new LdcInsnNode(profilerFrameId()));
         instructions.insertBefore(n, new MethodInsnNode(
             INVOKESTATIC,
             "battlecode/instrumenter/inject/RobotMonitor",
             "exitMethod",
-            "(" + Type.getDescriptor(String.class) + ")V",
+            "(I)V",
             false
         ));
     }
@@ -1,9 +1,8 @@
 package battlecode.instrumenter.profiler;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.List;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+import java.util.Arrays;
 
 /**
  * The Profiler class profiles bytecode usage in a sandboxed robot player.
@@ -16,19 +15,70 @@ import java.util.List;
  * which is used in the client to show the profiling data. See
  * https://github.com/jlfwong/speedscope/wiki/Importing-from-custom-sources
  * for more information on speedscope's file format.
+ * <p>
+ * Methods are identified by frame ids assigned when they are instrumented
+ * (see TeamClassLoaderFactory.getProfilerFrameId), and events are stored in
+ * primitive columns, so recording an event doesn't allocate.
+ * <p>
+ * In sampling mode (see ProfilerCollection) the profiler only keeps track of
+ * the call stack, and counts how often each distinct stack is seen every so
+ * many bytecodes. When the match is over, the counts are turned into open and
+ * close events laid out like a flame graph: each frame lasts as long as the
+ * bytecodes sampled in it, and its callees are laid out one after another
+ * from its start.
  */
 public class Profiler {
+    private static final ProfilerEventType[] EVENT_TYPES = ProfilerEventType.values();
+
     private final ProfilerCollection collection;
     private final String name;
 
     private int bytecodeCounter = 0;
 
-    private final List<ProfilerEvent> events = new ArrayList<>();
-    private final Deque<Integer> openFrameIds = new ArrayDeque<>();
+    /**
+     * The number of bytecodes between samples, or 0 to trace every call.
+     */
+    private final int sampleInterval;
+    private long bytecodesUntilSample;
+
+    // The sampled call stacks, as a tree: node i is a call to frame
+    // stackFrames[i] from node stackParents[i] (-1 for the outermost call),
+    // which was the innermost call in stackSamples[i] samples.
+    // stackNodes maps (parent node + 1) << 32 | frame id to the node.
+    private TLongIntHashMap stackNodes;
+    private int stackNodeCount = 0;
+    private int[] stackParents;
+    private int[] stackFrames;
+    private int[] stackSamples;
+
+    // The recorded events, one column per field
+    private int eventCount = 0;
+    private int[] eventTypes = new int[64];
+    private int[] eventAts = new int[64];
+    private int[] eventFrameIds = new int[64];
+
+    // The frame ids of the recorded methods that are still open, innermost last
+    private int[] openFrameIds = new int[16];
+    private int openFrameCount = 0;
+
+    /**
+     * The number of methods entered, and not yet exited, since events
+     * stopped being recorded.
+     */
+    private int skippedFrameCount = 0;
 
     public Profiler(ProfilerCollection collection, String name) {
         this.collection = collection;
         this.name = name;
+        this.sampleInterval = collection.getSampleInterval();
+
+        if (sampleInterval > 0) {
+            bytecodesUntilSample = sampleInterval;
+            stackNodes = new TLongIntHashMap(64, 0.5f, -1L, -1);
+            stackParents = new int[64];
+            stackFrames = new int[64];
+            stackSamples = new int[64];
+        }
     }
 
     public void incrementBytecodes(int amount) {
@@ -37,49 +87,220 @@ public class Profiler {
         } catch (ArithmeticException e) {
             bytecodeCounter = Integer.MAX_VALUE;
         }
+
+        if (sampleInterval > 0 && amount > 0) {
+            bytecodesUntilSample -= amount;
+            if (bytecodesUntilSample <= 0) {
+                long samples = 1 + (-bytecodesUntilSample) / sampleInterval;
+                bytecodesUntilSample += samples * sampleInterval;
+                sample((int) Math.min(samples, Integer.MAX_VALUE));
+            }
+        }
     }
 
-    public void enterMethod(String methodName) {
-        if (!collection.isRecordingEvents()) {
-            return;
+    public void enterMethod(int frameId) {
+        if (sampleInterval == 0) {
+            if (skippedFrameCount > 0 || !collection.isRecordingEvents()) {
+                skippedFrameCount++;
+                return;
+            }
+
+            collection.recordEvent();
+
+            addEvent(ProfilerEventType.OPEN, bytecodeCounter, frameId);
+        }
+
+        if (openFrameCount == openFrameIds.length) {
+            openFrameIds = Arrays.copyOf(openFrameIds, openFrameCount * 2);
         }
+        openFrameIds[openFrameCount++] = frameId;
+    }
 
-        if (methodName.startsWith("instrumented.")) {
+    public void exitMethod(int frameId) {
+        if (skippedFrameCount > 0) {
+            skippedFrameCount--;
+            return;
+        }
+        if (openFrameCount == 0) {
             return;
         }
 
-        collection.recordEvent();
+        int openFrameId = openFrameIds[--openFrameCount];
+        if (sampleInterval == 0) {
+            addEvent(ProfilerEventType.CLOSE, bytecodeCounter, openFrameId);
+        }
+    }
 
-        int frameId = collection.getFrameId(methodName);
+    public void exitOpenMethods() {
+        skippedFrameCount = 0;
+        if (sampleInterval > 0) {
+            openFrameCount = 0;
+            return;
+        }
+        while (openFrameCount > 0) {
+            addEvent(ProfilerEventType.CLOSE, bytecodeCounter, openFrameIds[--openFrameCount]);
+        }
 
-        events.add(new ProfilerEvent(ProfilerEventType.OPEN, bytecodeCounter, frameId));
-        openFrameIds.addFirst(frameId);
+        // The robot is done, so there is no point holding on to its buffer
+        if (collection.isStreaming() && eventCount > 0) {
+            flushEvents();
+            eventTypes = new int[16];
+            eventAts = new int[16];
+            eventFrameIds = new int[16];
+        }
     }
 
-    public void exitMethod(String methodName) {
-        if (openFrameIds.isEmpty() && !collection.isRecordingEvents()) {
+    /**
+     * Count the current call stack as seen in some samples.
+     */
+    private void sample(int samples) {
+        if (openFrameCount == 0 || stackNodes == null) {
             return;
         }
 
-        if (methodName.startsWith("instrumented.")) {
+        int node = -1;
+        for (int i = 0; i < openFrameCount; i++) {
+            int frameId = openFrameIds[i];
+            long key = ((long) (node + 1) << 32) | frameId;
+            int child = stackNodes.get(key);
+            if (child == -1) {
+                child = addStackNode(node, frameId);
+                stackNodes.put(key, child);
+            }
+            node = child;
+        }
+        stackSamples[node] += samples;
+    }
+
+    private int addStackNode(int parent, int frameId) {
+        if (stackNodeCount == stackParents.length) {
+            int capacity = stackNodeCount * 2;
+            stackParents = Arrays.copyOf(stackParents, capacity);
+            stackFrames = Arrays.copyOf(stackFrames, capacity);
+            stackSamples = Arrays.copyOf(stackSamples, capacity);
+        }
+        stackParents[stackNodeCount] = parent;
+        stackFrames[stackNodeCount] = frameId;
+        stackSamples[stackNodeCount] = 0;
+        return stackNodeCount++;
+    }
+
+    /**
+     * Turn the sampled call stacks into events, and stream the events that
+     * are still buffered if streaming.
+     */
+    public void finish() {
+        addSampleEvents();
+        if (collection.isStreaming() && eventCount > 0) {
+            flushEvents();
+        }
+    }
+
+    private void addSampleEvents() {
+        if (stackNodes == null) {
             return;
         }
 
-        events.add(new ProfilerEvent(ProfilerEventType.CLOSE, bytecodeCounter, collection.getFrameId(methodName)));
-        openFrameIds.pop();
+        int nodes = stackNodeCount;
+
+        // Every node is created after its parent, so totals can be summed up
+        // in one backwards pass, and children are linked in creation order.
+        long[] totals = new long[nodes];
+        int[] firstChild = new int[nodes];
+        int[] nextSibling = new int[nodes];
+        Arrays.fill(firstChild, -1);
+        int firstRoot = -1;
+        long totalSamples = 0;
+        for (int i = nodes - 1; i >= 0; i--) {
+            totals[i] += stackSamples[i];
+            int parent = stackParents[i];
+            if (parent >= 0) {
+                totals[parent] += totals[i];
+                nextSibling[i] = firstChild[parent];
+                firstChild[parent] = i;
+            } else {
+                totalSamples += totals[i];
+                nextSibling[i] = firstRoot;
+                firstRoot = i;
+            }
+        }
+
+        // Event times are in bytecodes, scaled down if they wouldn't fit in an int
+        double bytecodesPerSample = sampleInterval;
+        if (totalSamples * sampleInterval > Integer.MAX_VALUE) {
+            bytecodesPerSample = (double) Integer.MAX_VALUE / totalSamples;
+        }
+
+        long[] starts = new long[nodes];
+        long time = 0;
+        int node = firstRoot;
+        while (node >= 0) {
+            starts[node] = time;
+            addEvent(ProfilerEventType.OPEN, (int) (time * bytecodesPerSample), stackFrames[node]);
+            if (firstChild[node] >= 0) {
+                node = firstChild[node];
+                continue;
+            }
+
+            // Close this node and every ancestor it was the last child of
+            while (node >= 0) {
+                time = starts[node] + totals[node];
+                addEvent(ProfilerEventType.CLOSE, (int) (time * bytecodesPerSample), stackFrames[node]);
+                if (nextSibling[node] >= 0) {
+                    node = nextSibling[node];
+                    break;
+                }
+                node = stackParents[node];
+            }
+        }
+
+        stackNodes = null;
+        stackParents = null;
+        stackFrames = null;
+        stackSamples = null;
     }
 
-    public void exitOpenMethods() {
-        while (!openFrameIds.isEmpty()) {
-            events.add(new ProfilerEvent(ProfilerEventType.CLOSE, bytecodeCounter, openFrameIds.pop()));
+    private void addEvent(ProfilerEventType type, int at, int frameId) {
+        if (eventCount == ProfilerCollection.STREAM_CHUNK_EVENTS && collection.isStreaming()) {
+            flushEvents();
         }
+        if (eventCount == eventTypes.length) {
+            int capacity = eventCount * 2;
+            eventTypes = Arrays.copyOf(eventTypes, capacity);
+            eventAts = Arrays.copyOf(eventAts, capacity);
+            eventFrameIds = Arrays.copyOf(eventFrameIds, capacity);
+        }
+        eventTypes[eventCount] = type.ordinal();
+        eventAts[eventCount] = at;
+        eventFrameIds[eventCount] = frameId;
+        eventCount++;
+    }
+
+    /**
+     * Stream the buffered events and forget them.
+     */
+    private void flushEvents() {
+        collection.streamEvents(this, eventCount, eventTypes, eventAts, eventFrameIds);
+        eventCount = 0;
     }
 
     public String getName() {
         return name;
     }
 
-    public List<ProfilerEvent> getEvents() {
-        return events;
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public ProfilerEventType getEventType(int index) {
+        return EVENT_TYPES[eventTypes[index]];
+    }
+
+    public int getEventAt(int index) {
+        return eventAts[index];
+    }
+
+    public int getEventFrameId(int index) {
+        return eventFrameIds[index];
     }
 }
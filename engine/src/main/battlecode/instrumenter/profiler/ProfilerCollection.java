@@ -1,13 +1,24 @@
 package battlecode.instrumenter.profiler;
 
 
+import battlecode.instrumenter.TeamClassLoaderFactory;
+import battlecode.server.ErrorReporter;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * A ProfilerCollection is a collection of all Profiler instances for a team for a match.
+ * <p>
+ * Profilers either trace every method call, up to a limit of events per team
+ * per match, or (with a sample interval) sample each robot's call stack every
+ * so many bytecodes, which has no limit.
+ * <p>
+ * Profiles are either kept in memory until they are written to the match
+ * footer, or streamed to a side file in chunks as they are recorded (see
+ * ProfilerStreamWriter); streamed traces have no limit either.
  */
 public class ProfilerCollection {
     /**
@@ -18,13 +29,63 @@ public class ProfilerCollection {
      */
     private static final int MAX_EVENTS_TO_RECORD = 2_000_000;
 
+    /**
+     * The number of events each profiler buffers before streaming them.
+     */
+    static final int STREAM_CHUNK_EVENTS = 4096;
+
     private List<Profiler> profilers = new ArrayList<>();
 
-    private List<String> frames = new ArrayList<>();
-    private Map<String, Integer> frameIds = new HashMap<>();
+    /**
+     * The factory whose instrumented classes the profilers record,
+     * which assigns frame ids.
+     */
+    private final TeamClassLoaderFactory factory;
+
+    /**
+     * The number of bytecodes between samples, or 0 to trace every call.
+     */
+    private final int sampleInterval;
+
+    /**
+     * The side file profiles are streamed to, or null to keep them in memory.
+     */
+    private ProfilerStreamWriter stream;
+
+    /**
+     * The file profiles are streamed to, even if streaming failed; null if
+     * profiles are kept in memory.
+     */
+    private final File streamFile;
 
     private int recordedEvents = 0;
 
+    public ProfilerCollection(TeamClassLoaderFactory factory) {
+        this(factory, 0);
+    }
+
+    public ProfilerCollection(TeamClassLoaderFactory factory, int sampleInterval) {
+        this(factory, sampleInterval, null);
+    }
+
+    /**
+     * @param factory        the factory whose classes are profiled
+     * @param sampleInterval the number of bytecodes between samples, or 0 to trace every call
+     * @param streamFile     the file to stream profiles to, or null to keep them in memory
+     */
+    public ProfilerCollection(TeamClassLoaderFactory factory, int sampleInterval, File streamFile) {
+        this.factory = factory;
+        this.sampleInterval = Math.max(0, sampleInterval);
+        this.streamFile = streamFile;
+        if (streamFile != null) {
+            try {
+                this.stream = new ProfilerStreamWriter(streamFile);
+            } catch (IOException e) {
+                ErrorReporter.report(e, "Can't stream profiles to " + streamFile + ", they will be lost", false);
+            }
+        }
+    }
+
     public Profiler createProfiler(int robotId) {
         // The name has to be display-friendly
         String name = String.format("#%s", robotId);
@@ -35,21 +96,76 @@ public class ProfilerCollection {
         return profiler;
     }
 
+    /**
+     * @return the names of the methods that may be recorded, indexed by frame id
+     */
     public List<String> getFrames() {
-        return frames;
+        return factory.getProfilerFrames();
     }
 
     public List<Profiler> getProfilers() {
         return profilers;
     }
 
-    public int getFrameId(String methodName) {
-        if (!frameIds.containsKey(methodName)) {
-            frames.add(methodName);
-            frameIds.put(methodName, frames.size() - 1);
+    /**
+     * @return the number of bytecodes between samples, or 0 if every call is traced
+     */
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * @return the file profiles are streamed to, or null if they are kept in memory
+     */
+    public File getStreamFile() {
+        return streamFile;
+    }
+
+    public boolean isStreaming() {
+        return streamFile != null;
+    }
+
+    /**
+     * Stream some events of a profiler, if streaming.
+     */
+    void streamEvents(Profiler profiler, int count, int[] types, int[] ats, int[] frameIds) {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.writeEvents(profiler.getName(), count, types, ats, frameIds);
+        } catch (IOException e) {
+            ErrorReporter.report(e, "Can't stream profiles to " + streamFile + ", the rest will be lost", false);
+            closeStream();
+        }
+    }
+
+    private void closeStream() {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // nothing more to lose
+        }
+        stream = null;
+    }
+
+    /**
+     * Turn the samples of every profiler into events, and finish streaming
+     * them if streaming; call once the match is over.
+     */
+    public void finish() {
+        for (Profiler profiler : profilers) {
+            profiler.finish();
         }
 
-        return frameIds.get(methodName);
+        if (stream != null) {
+            try {
+                stream.finish(getFrames());
+            } catch (IOException e) {
+                ErrorReporter.report(e, "Can't stream profiles to " + streamFile, false);
+            }
+            closeStream();
+        }
     }
 
     public void recordEvent() {
@@ -57,6 +173,6 @@ public class ProfilerCollection {
     }
 
     public boolean isRecordingEvents() {
-        return recordedEvents < MAX_EVENTS_TO_RECORD;
+        return streamFile != null || recordedEvents < MAX_EVENTS_TO_RECORD;
     }
 }
@@ -0,0 +1,181 @@
+package battlecode.instrumenter.profiler;
+
+import battlecode.schema.ProfilerEvent;
+import battlecode.schema.ProfilerFile;
+import battlecode.schema.ProfilerProfile;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads back a profile streamed by ProfilerStreamWriter, merging the chunks
+ * of each profile.
+ * <p>
+ * Usage:<br>
+ * <code>java battlecode.instrumenter.profiler.ProfilerStreamReader ${profile stream} ${output.json}</code><br>
+ * converts a streamed profile to a speedscope file, which can be opened at
+ * https://www.speedscope.app.
+ */
+public class ProfilerStreamReader {
+
+    private final List<String> frames = new ArrayList<>();
+
+    // The events of each profile, in the order the profiles first appear:
+    // 1 for open events and 0 for close events, then at, then frame id
+    private final Map<String, TIntArrayList> profiles = new LinkedHashMap<>();
+
+    /**
+     * @param file the streamed profile to read
+     * @throws IOException if the file can't be read
+     */
+    public ProfilerStreamReader(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file), 1 << 16)))) {
+            byte[] chunk = new byte[0];
+            while (true) {
+                int size;
+                try {
+                    size = Integer.reverseBytes(in.readInt());
+                } catch (EOFException e) {
+                    break;
+                }
+                if (chunk.length < size) {
+                    chunk = new byte[size];
+                }
+                in.readFully(chunk, 0, size);
+                readChunk(ByteBuffer.wrap(chunk, 0, size).slice().order(ByteOrder.LITTLE_ENDIAN));
+            }
+        }
+    }
+
+    private void readChunk(ByteBuffer buffer) {
+        ProfilerFile file = ProfilerFile.getRootAsProfilerFile(buffer);
+        for (int i = 0; i < file.framesLength(); i++) {
+            frames.add(file.frames(i));
+        }
+
+        ProfilerProfile profile = new ProfilerProfile();
+        ProfilerEvent event = new ProfilerEvent();
+        for (int i = 0; i < file.profilesLength(); i++) {
+            file.profiles(profile, i);
+            TIntArrayList events = profiles.computeIfAbsent(profile.name(), (name) -> new TIntArrayList());
+            for (int j = 0; j < profile.eventsLength(); j++) {
+                profile.events(event, j);
+                events.add(event.isOpen() ? 1 : 0);
+                events.add(event.at());
+                events.add(event.frame());
+            }
+        }
+    }
+
+    /**
+     * @return the names of the methods, indexed by frame id
+     */
+    public List<String> getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return the names of the profiles, in the order they were first written
+     */
+    public List<String> getProfileNames() {
+        return new ArrayList<>(profiles.keySet());
+    }
+
+    /**
+     * @param name the name of a profile
+     * @return the number of events in the profile
+     */
+    public int getEventCount(String name) {
+        return profiles.get(name).size() / 3;
+    }
+
+    public ProfilerEventType getEventType(String name, int index) {
+        return profiles.get(name).get(index * 3) == 1 ? ProfilerEventType.OPEN : ProfilerEventType.CLOSE;
+    }
+
+    public int getEventAt(String name, int index) {
+        return profiles.get(name).get(index * 3 + 1);
+    }
+
+    public int getEventFrameId(String name, int index) {
+        return profiles.get(name).get(index * 3 + 2);
+    }
+
+    /**
+     * Write the profiles in speedscope's file format.
+     *
+     * @param out the writer to write to
+     * @throws IOException if writing fails
+     */
+    public void writeSpeedscope(Writer out) throws IOException {
+        out.write("{\"$schema\":\"https://www.speedscope.app/file-format-schema.json\",\"shared\":{\"frames\":[");
+        for (int i = 0; i < frames.size(); i++) {
+            out.write(i == 0 ? "{\"name\":" : ",{\"name\":");
+            writeString(out, frames.get(i));
+            out.write('}');
+        }
+        out.write("]},\"profiles\":[");
+
+        boolean first = true;
+        for (Map.Entry<String, TIntArrayList> profile : profiles.entrySet()) {
+            TIntArrayList events = profile.getValue();
+            int start = Integer.MAX_VALUE;
+            int end = Integer.MIN_VALUE;
+            for (int i = 1; i < events.size(); i += 3) {
+                start = Math.min(start, events.get(i));
+                end = Math.max(end, events.get(i));
+            }
+            if (events.isEmpty()) {
+                start = end = 0;
+            }
+
+            out.write(first ? "{\"type\":\"evented\",\"name\":" : ",{\"type\":\"evented\",\"name\":");
+            first = false;
+            writeString(out, profile.getKey());
+            out.write(",\"unit\":\"none\",\"startValue\":" + start + ",\"endValue\":" + end + ",\"events\":[");
+            for (int i = 0; i < events.size(); i += 3) {
+                out.write(i == 0 ? "{\"type\":\"" : ",{\"type\":\"");
+                out.write(events.get(i) == 1 ? ProfilerEventType.OPEN.getValue() : ProfilerEventType.CLOSE.getValue());
+                out.write("\",\"at\":" + events.get(i + 1) + ",\"frame\":" + events.get(i + 2) + "}");
+            }
+            out.write("]}");
+        }
+        out.write("]}");
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: battlecode.instrumenter.profiler.ProfilerStreamReader ${profile stream} ${output.json}");
+            System.exit(1);
+        }
+
+        ProfilerStreamReader reader = new ProfilerStreamReader(new File(args[0]));
+        try (Writer out = new BufferedWriter(new FileWriter(args[1]))) {
+            reader.writeSpeedscope(out);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package battlecode.instrumenter.profiler;
+
+import battlecode.schema.ProfilerEvent;
+import battlecode.schema.ProfilerFile;
+import battlecode.schema.ProfilerProfile;
+import com.google.flatbuffers.FlatBufferBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams profiles to a side file as they are recorded, so they don't have
+ * to be kept in memory until the end of the match.
+ * <p>
+ * The file is a gzip stream of size-prefixed ProfilerFile flatbuffers
+ * ("chunks"), flushed one at a time. A chunk holds part of the events of a
+ * single profile; the events of a profile are split over several chunks in
+ * order, which are matched up by profile name. The last chunk holds the frames
+ * and no profiles. See ProfilerStreamReader for reading the file back.
+ */
+public class ProfilerStreamWriter implements Closeable {
+
+    private final File file;
+    private final OutputStream out;
+    private final FlatBufferBuilder builder = new FlatBufferBuilder(1 << 16);
+
+    /**
+     * @param file the file to stream to; overwritten if it exists
+     * @throws IOException if the file can't be created
+     */
+    public ProfilerStreamWriter(File file) throws IOException {
+        this.file = file;
+        this.out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16), 1 << 16, true);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Write a chunk holding some events of a profile.
+     *
+     * @param name          the name of the profile
+     * @param count         the number of events to write
+     * @param types         the ProfilerEventType ordinal of each event
+     * @param ats           the bytecode counter at each event
+     * @param frameIds      the frame id of each event
+     * @throws IOException if writing fails
+     */
+    public synchronized void writeEvents(String name, int count, int[] types, int[] ats, int[] frameIds)
+            throws IOException {
+        builder.clear();
+
+        int[] events = new int[count];
+        for (int i = 0; i < count; i++) {
+            ProfilerEvent.startProfilerEvent(builder);
+            ProfilerEvent.addIsOpen(builder, types[i] == ProfilerEventType.OPEN.ordinal());
+            ProfilerEvent.addAt(builder, ats[i]);
+            ProfilerEvent.addFrame(builder, frameIds[i]);
+            events[i] = ProfilerEvent.endProfilerEvent(builder);
+        }
+        int nameOffset = builder.createString(name);
+        int eventsOffset = ProfilerProfile.createEventsVector(builder, events);
+        int profile = ProfilerProfile.createProfilerProfile(builder, nameOffset, eventsOffset);
+
+        int profiles = ProfilerFile.createProfilesVector(builder, new int[] {profile});
+        writeChunk(ProfilerFile.createProfilerFile(builder, 0, profiles));
+    }
+
+    /**
+     * Write the final chunk, holding the frames, and close the file.
+     *
+     * @param frames the names of the methods, indexed by frame id
+     * @throws IOException if writing fails
+     */
+    public synchronized void finish(List<String> frames) throws IOException {
+        builder.clear();
+
+        int[] names = new int[frames.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = builder.createString(frames.get(i));
+        }
+        int framesOffset = ProfilerFile.createFramesVector(builder, names);
+        writeChunk(ProfilerFile.createProfilerFile(builder, framesOffset, 0));
+        close();
+    }
+
+    private void writeChunk(int profilerFile) throws IOException {
+        builder.finishSizePrefixed(profilerFile);
+        byte[] chunk = builder.sizedByteArray();
+        out.write(chunk);
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
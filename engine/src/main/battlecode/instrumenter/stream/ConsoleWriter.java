@@ -0,0 +1,204 @@
+package battlecode.instrumenter.stream;
+
+import battlecode.server.Config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes robot output to the console on a thread of its own, so that a slow
+ * terminal or pipe doesn't hold up the robots.
+ *
+ * Output is handed over through a lock-free queue holding at most a fixed
+ * number of bytes. When the queue is full, robots either wait for the console
+ * to catch up ("block") or their output is dropped and counted ("drop").
+ *
+ * Output from one thread is written in the order it was queued. Engine
+ * messages that go straight to System.out should call drainIfStarted() first,
+ * so that they come after the robot output queued before them.
+ */
+public class ConsoleWriter {
+
+    // singleton, for System.out; created on first use
+    private static ConsoleWriter theInstance;
+
+    private final OutputStream out;
+    private final long capacity;
+    private final boolean dropWhenFull;
+
+    private final ConcurrentLinkedQueue<byte[]> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of bytes in the queue.
+     */
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    /**
+     * The number of chunks queued and written so far, used to wait for the
+     * queue to drain.
+     */
+    private final AtomicLong queuedChunks = new AtomicLong();
+    private final AtomicLong writtenChunks = new AtomicLong();
+
+    private final AtomicLong droppedLines = new AtomicLong();
+
+    private volatile Thread thread;
+
+    /**
+     * Whether the writer thread is parked, waiting for output.
+     */
+    private volatile boolean idle;
+
+    /**
+     * Create a writer; call start() before writing to it.
+     *
+     * @param out          the stream to write to
+     * @param capacity     the number of bytes the queue may hold
+     * @param dropWhenFull whether to drop output when the queue is full,
+     *                     instead of waiting for it to drain
+     */
+    public ConsoleWriter(OutputStream out, long capacity, boolean dropWhenFull) {
+        this.out = out;
+        this.capacity = capacity;
+        this.dropWhenFull = dropWhenFull;
+    }
+
+    /**
+     * Start the thread that writes the output.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Console writer already started");
+        }
+        Thread writer = new Thread(this::run, "console writer");
+        writer.setDaemon(true);
+        writer.start();
+        thread = writer;
+    }
+
+    /**
+     * @return the writer for System.out, configured by bc.server.console-queue-bytes
+     *         and bc.server.console-policy
+     */
+    public static synchronized ConsoleWriter theInstance() {
+        if (theInstance == null) {
+            Config options = Config.getGlobalConfig();
+            theInstance = new ConsoleWriter(java.lang.System.out, options.getInt("bc.server.console-queue-bytes"),
+                    "drop".equals(options.get("bc.server.console-policy")));
+            theInstance.start();
+        }
+        return theInstance;
+    }
+
+    /**
+     * @return the writer for System.out, or null if it hasn't been used yet
+     */
+    public static synchronized ConsoleWriter getInstanceIfStarted() {
+        return theInstance;
+    }
+
+    /**
+     * Wait until the robot output queued so far has been written, if the
+     * writer for System.out has been used.
+     */
+    public static void drainIfStarted() {
+        ConsoleWriter console = getInstanceIfStarted();
+        if (console != null) {
+            console.drain();
+        }
+    }
+
+    /**
+     * Queue output to be written. The bytes are copied, so the caller may
+     * reuse its buffer.
+     *
+     * @param buf the output
+     * @param off the start of the output in buf
+     * @param len the number of bytes of output
+     */
+    public void write(byte[] buf, int off, int len) {
+        if (len == 0) {
+            return;
+        }
+        // Output larger than the queue is let through whenever the queue is empty
+        while (queuedBytes.get() > 0 && queuedBytes.get() + len > capacity) {
+            if (dropWhenFull) {
+                droppedLines.addAndGet(countLines(buf, off, len));
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+
+        queuedBytes.addAndGet(len);
+        queuedChunks.incrementAndGet();
+        queue.offer(Arrays.copyOfRange(buf, off, off + len));
+        if (idle) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Wait until everything queued so far has been written.
+     */
+    public void drain() {
+        long target = queuedChunks.get();
+        while (writtenChunks.get() < target) {
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * @return the number of lines of output dropped because the queue was full
+     */
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    /**
+     * @return the number of bytes waiting to be written
+     */
+    public long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    private void run() {
+        while (true) {
+            byte[] chunk = queue.poll();
+            if (chunk == null) {
+                idle = true;
+                // re-check, in case output was queued before we were marked idle
+                if (queue.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            try {
+                out.write(chunk, 0, chunk.length);
+                if (queue.isEmpty()) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // nowhere to report it; the console is what failed
+            }
+            queuedBytes.addAndGet(-chunk.length);
+            writtenChunks.incrementAndGet();
+        }
+    }
+
+    private static int countLines(byte[] buf, int off, int len) {
+        int lines = 0;
+        for (int i = off; i < off + len; i++) {
+            if (buf[i] == '\n') {
+                lines++;
+            }
+        }
+        return lines == 0 ? 1 : lines;
+    }
+}
@@ -0,0 +1,59 @@
+package battlecode.instrumenter.stream;
+
+/**
+ * The number of bytes of output a team may still write to the match file,
+ * shared by all of the team's RoboPrintStreams. Headers don't count towards
+ * the limit.
+ *
+ * Not thread safe; only one robot of a team runs at a time.
+ */
+public class OutputLimit {
+
+    /**
+     * The number of bytes left, or -1 for no limit.
+     */
+    private int remaining;
+
+    private boolean reportedTruncation;
+
+    /**
+     * @param maxOutputBytes the number of bytes the team may write, or -1 for no limit
+     */
+    public OutputLimit(int maxOutputBytes) {
+        this.remaining = maxOutputBytes;
+    }
+
+    /**
+     * @return whether the team may not write any more output
+     */
+    public boolean isExhausted() {
+        return remaining == 0;
+    }
+
+    /**
+     * Use up to some number of bytes of the limit.
+     *
+     * @param bytes the number of bytes the team wants to write
+     * @return the number of those bytes the team may write
+     */
+    public int take(int bytes) {
+        if (remaining == -1) {
+            return bytes;
+        }
+        int allowed = Math.min(bytes, remaining);
+        remaining -= allowed;
+        return allowed;
+    }
+
+    /**
+     * @return true the first time it is called, so that truncation is only
+     *         reported once per team
+     */
+    public boolean reportTruncation() {
+        if (reportedTruncation) {
+            return false;
+        }
+        reportedTruncation = true;
+        return true;
+    }
+}
@@ -2,34 +2,111 @@ package battlecode.instrumenter.stream;
 
 import battlecode.common.Team;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Formatter;
 
 /**
  * RoboPrintStream is a wrapper for System.out that prepends a string identifying the current robot to
  * all outputted strings.  Also, RoboPrintStream will silence all output if the robot should be silenced.
  *
+ * Output is encoded straight into a buffer that the robot keeps for its whole life, and is written out
+ * by flush(), which SandboxedRobotPlayer calls at the end of every turn, or as soon as the buffer holds
+ * FLUSH_THRESHOLD bytes. The header is only built once per turn. Output to System.out goes through
+ * the ConsoleWriter, so the robot doesn't wait on the console.
+ *
  * @author adamd
  */
 @SuppressWarnings("unused")
 public class RoboPrintStream extends PrintStream {
 
-    private final LimitedPrintStream real;
+    /**
+     * Write output out before the end of the turn once this many bytes are buffered.
+     */
+    public static final int FLUSH_THRESHOLD = 1 << 16;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
 
-    private boolean headerThisRound;
-    private Team team;
-    private int id;
-    private int round;
+    private static final byte[] TRUNCATION_MESSAGE =
+            "[output truncated due to team output limit]\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] LINE_SEPARATOR =
+            java.lang.System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final OutputStream robotOut;
+    private final OutputLimit limit;
+
+    /**
+     * Where to write output for System.out; null to only write to robotOut.
+     */
+    private final ConsoleWriter console;
+
+    /**
+     * The header of the current turn, which is always ASCII.
+     */
+    private byte[] header = new byte[32];
+    private int headerLength;
+
+    /**
+     * Output not written out yet.
+     */
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int length;
 
-    private boolean writeToSystemOut;
+    /**
+     * The number of buffered bytes that robotOut gets, or -1 if it gets all
+     * of them; once a team runs out of output, only System.out gets the rest.
+     */
+    private int robotOutLength = -1;
+
+    /**
+     * Whether to tell robotOut that output was truncated after the buffered output.
+     */
+    private boolean truncated;
+
+    /**
+     * Where the value being printed starts in the buffer, and whether it is
+     * going to robotOut.
+     */
+    private int valueStart;
+    private boolean valueToRobotOut;
+
+    /**
+     * Used to turn numbers and formats into characters without allocating.
+     */
+    private final StringBuilder chars = new StringBuilder();
+    private final StringBuilder formatted = new StringBuilder();
+    private final Formatter formatter = new Formatter(formatted);
+
+    /**
+     * Whether formatter is in use. It calls robot code, such as toString(),
+     * which may print with format() too.
+     */
+    private boolean formatting;
 
-    // if maxOutputBytes is -1, then it is treated as no limit
-    public RoboPrintStream(OutputStream robotOut, boolean writeToSystemOut, int maxOutputBytes) throws UnsupportedEncodingException {
+    /**
+     * @param robotOut         the output to write to the match file
+     * @param writeToSystemOut whether to write output to System.out as well
+     * @param limit            the output limit of the robot's team, which only
+     *                         applies to robotOut
+     */
+    public RoboPrintStream(OutputStream robotOut, boolean writeToSystemOut, OutputLimit limit) {
+        this(robotOut, writeToSystemOut ? ConsoleWriter.theInstance() : null, limit);
+    }
+
+    /**
+     * @param robotOut the output to write to the match file
+     * @param console  where to write output for System.out, or null
+     * @param limit    the output limit of the robot's team, which only
+     *                 applies to robotOut
+     */
+    public RoboPrintStream(OutputStream robotOut, ConsoleWriter console, OutputLimit limit) {
         super(SilencedPrintStream.theInstance());
-        this.real = new LimitedPrintStream(robotOut, true, "UTF-8", maxOutputBytes);
-        this.headerThisRound = false;
-        this.writeToSystemOut = writeToSystemOut;
+        this.robotOut = robotOut;
+        this.console = console;
+        this.limit = limit;
     }
 
     //************************
@@ -37,57 +114,45 @@ public class RoboPrintStream extends PrintStream {
     //************************
 
     public void print(boolean b) {
-        String header = getHeader();
-        real.print(header + b);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + b);
+        printValue(b ? "true" : "false", false);
     }
 
     public void print(char c) {
-        String header = getHeader();
-        real.print(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + c);
+        chars.setLength(0);
+        printValue(chars.append(c), false);
     }
 
     public void print(char[] s) {
-        String header = getHeader();
-        real.print(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + s);
+        chars.setLength(0);
+        printValue(chars.append(s), false);
     }
 
     public void print(double d) {
-        String header = getHeader();
-        real.print(header + d);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + d);
+        chars.setLength(0);
+        printValue(chars.append(d), false);
     }
 
     public void print(float f) {
-        String header = getHeader();
-        real.print(header + f);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + f);
+        chars.setLength(0);
+        printValue(chars.append(f), false);
     }
 
     public void print(int i) {
-        String header = getHeader();
-        real.print(header + i);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + i);
+        chars.setLength(0);
+        printValue(chars.append(i), false);
     }
 
     public void print(long l) {
-        String header = getHeader();
-        real.print(header + l);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + l);
+        chars.setLength(0);
+        printValue(chars.append(l), false);
     }
 
     public void print(Object obj) {
-        String header = getHeader();
-        real.print(header + obj);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + obj);
+        printValue(String.valueOf(obj), false);
     }
 
     public void print(String s) {
-        String header = getHeader();
-        real.print(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + s);
+        printValue(s == null ? "null" : s, false);
     }
 
     //***************************
@@ -95,63 +160,49 @@ public class RoboPrintStream extends PrintStream {
     //***************************
 
     public void println(boolean b) {
-        String header = getHeader();
-        real.println(header + b);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + b);
+        printValue(b ? "true" : "false", true);
     }
 
     public void println(char c) {
-        String header = getHeader();
-        real.println(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + c);
+        chars.setLength(0);
+        printValue(chars.append(c), true);
     }
 
     public void println(char[] s) {
-        String header = getHeader();
-        real.println(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + s);
+        chars.setLength(0);
+        printValue(chars.append(s), true);
     }
 
     public void println(double d) {
-        String header = getHeader();
-        real.println(header + d);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + d);
+        chars.setLength(0);
+        printValue(chars.append(d), true);
     }
 
     public void println(float f) {
-        String header = getHeader();
-        real.println(header + f);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + f);
+        chars.setLength(0);
+        printValue(chars.append(f), true);
     }
 
     public void println(int i) {
-        String header = getHeader();
-        real.println(header + i);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + i);
+        chars.setLength(0);
+        printValue(chars.append(i), true);
     }
 
     public void println(long l) {
-        String header = getHeader();
-        real.println(header + l);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + l);
+        chars.setLength(0);
+        printValue(chars.append(l), true);
     }
 
     public void println(Object obj) {
-        String header = getHeader();
-        real.println(header + obj);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + obj);
+        printValue(String.valueOf(obj), true);
     }
 
     public void println(String s) {
-        String header = getHeader();
-        real.println(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + s);
+        printValue(s == null ? "null" : s, true);
     }
 
     public void println() {
-        String header = getHeader();
-        real.println(header);
-        if (this.writeToSystemOut) java.lang.System.out.println(header);
+        printValue("", true);
     }
 
 
@@ -160,23 +211,22 @@ public class RoboPrintStream extends PrintStream {
     //*************************
 
     public PrintStream append(char c) {
-        String header = getHeader();
-        real.print(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + c);
+        print(c);
         return this;
     }
 
     public PrintStream append(CharSequence csq) {
-        String header = getHeader();
-        real.print(header + csq);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + csq);
+        // csq may be robot code, which must not run while a value is being printed
+        printValue(String.valueOf(csq), false);
         return this;
     }
 
     public PrintStream append(CharSequence csq, int start, int end) {
-        String header = getHeader();
-        real.print(header + csq.subSequence(start, end).toString());
-        if (this.writeToSystemOut) java.lang.System.out.print(header + csq.subSequence(start, end).toString());
+        String s = String.valueOf(csq);
+        if (startValue()) {
+            appendChars(s, start, end);
+            endValue();
+        }
         return this;
     }
 
@@ -191,33 +241,62 @@ public class RoboPrintStream extends PrintStream {
     }
 
     public PrintStream format(String format, Object... args) {
-        String header = getHeader();
-        real.print(header + String.format(format, args));
-        if (this.writeToSystemOut) java.lang.System.out.print(header + String.format(format, args));
+        // Format before printing anything, so a bad format prints nothing
+        if (formatting) {
+            // called from an argument being formatted, so formatted is in use
+            printValue(new Formatter().format(format, args).toString(), false);
+            return this;
+        }
+        formatting = true;
+        try {
+            formatted.setLength(0);
+            formatter.format(format, args);
+        } finally {
+            formatting = false;
+        }
+        printValue(formatted, false);
         return this;
     }
 
     public PrintStream printf(String format, Object... args) {
-        String header = getHeader();
-        real.printf(header + format, args);
-        if (this.writeToSystemOut) java.lang.System.out.printf(header + format, args);
-        return this;
+        return format(format, args);
     }
 
     public void write(byte[] buf, int off, int len) {
-        byte[] header = getHeader().getBytes();
-        byte[] buf2 = new byte[header.length + buf.length];
-        System.arraycopy(header, 0, buf2, 0, header.length);
-        System.arraycopy(buf, off, buf2, header.length, len);
-        real.write(buf2, 0, header.length + len);
-        if (this.writeToSystemOut) java.lang.System.out.write(buf2, 0, header.length + len);
+        if (startValue()) {
+            appendBytes(buf, off, len);
+            endValue();
+        }
     }
 
     public void write(int b) {
-        String s = getHeader() + (char) b;
-        byte[] buf = s.getBytes();
-        real.write(buf, 0, buf.length);
-        if (this.writeToSystemOut) java.lang.System.out.write(buf, 0, buf.length);
+        chars.setLength(0);
+        printValue(chars.append((char) b), false);
+    }
+
+    /**
+     * Write out everything printed since the last flush.
+     */
+    public void flush() {
+        if (length == 0 && !truncated) {
+            return;
+        }
+        try {
+            robotOut.write(buffer, 0, robotOutLength < 0 ? length : robotOutLength);
+            if (truncated) {
+                robotOut.write(TRUNCATION_MESSAGE, 0, TRUNCATION_MESSAGE.length);
+            }
+        } catch (IOException e) {
+        }
+        if (this.console != null) this.console.write(buffer, 0, length);
+
+        length = 0;
+        robotOutLength = -1;
+        truncated = false;
+        if (buffer.length > 2 * FLUSH_THRESHOLD) {
+            // don't hold on to the memory of one huge print
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
     }
 
     //**************************
@@ -228,21 +307,113 @@ public class RoboPrintStream extends PrintStream {
      * Update the header prepended to messages printed with the stream.
      *
      * @param team
-     * @param type
      * @param id
      * @param round
      */
     public void updateHeader(Team team, int id, int round) {
-        this.team = team;
-        this.id = id;
-        this.round = round;
-        this.headerThisRound = false;
-        this.real.setTeam(team);
+        chars.setLength(0);
+        chars.append('[').append(team).append(": #").append(id).append('@').append(round).append("] ");
+        if (header.length < chars.length()) {
+            header = new byte[chars.length()];
+        }
+        for (int i = 0; i < chars.length(); i++) {
+            header[i] = (byte) chars.charAt(i);
+        }
+        headerLength = chars.length();
+    }
+
+    private void printValue(CharSequence value, boolean newLine) {
+        if (startValue()) {
+            appendChars(value, 0, value.length());
+            if (newLine) {
+                appendBytes(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+            }
+            endValue();
+        }
+    }
+
+    /**
+     * Start printing a value by writing the header.
+     *
+     * @return false if the value wouldn't be written anywhere, in which case
+     *         it shouldn't be printed at all
+     */
+    private boolean startValue() {
+        valueToRobotOut = robotOutLength < 0 && !limit.isExhausted();
+        if (!valueToRobotOut) {
+            if (robotOutLength < 0) {
+                robotOutLength = length;
+                truncated |= limit.reportTruncation();
+            }
+            if (console == null) {
+                return false;
+            }
+        }
+        appendBytes(header, 0, headerLength);
+        valueStart = length;
+        return true;
+    }
+
+    /**
+     * Finish printing a value, charging it against the team's output limit.
+     */
+    private void endValue() {
+        if (valueToRobotOut) {
+            int valueLength = length - valueStart;
+            int allowed = limit.take(valueLength);
+            if (allowed < valueLength) {
+                robotOutLength = valueStart + allowed;
+                truncated |= limit.reportTruncation();
+            }
+        }
+        if (length >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            byte[] grown = new byte[Math.max(length + extra, buffer.length * 2)];
+            java.lang.System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
     }
 
-    private String getHeader() {
-        String s = "[" + team + ": #" + id + "@" + round + "] ";
-        real.increaseByteLimit(s.length());
-        return s;
+    private void appendBytes(byte[] bytes, int off, int len) {
+        ensureCapacity(len);
+        java.lang.System.arraycopy(bytes, off, buffer, length, len);
+        length += len;
+    }
+
+    /**
+     * Encode characters as UTF-8 into the buffer, replacing unpaired
+     * surrogates with '?' like the String encoder does.
+     */
+    private void appendChars(CharSequence s, int start, int end) {
+        ensureCapacity(3 * (end - start));
+        byte[] buf = buffer;
+        int pos = length;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xf0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        length = pos;
     }
 }
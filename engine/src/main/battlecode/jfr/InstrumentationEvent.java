@@ -0,0 +1,29 @@
+package battlecode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The instrumentation of one class for a robot. Committed by
+ * TeamClassLoaderFactory.Loader.
+ */
+@Name("battlecode.Instrumentation")
+@Label("Class Instrumentation")
+@Category({"Battlecode", "Instrumenter"})
+@Description("Instrumenting a class to count bytecodes")
+public class InstrumentationEvent extends jdk.jfr.Event {
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Team Class")
+    @Description("Whether the class is a player class, rather than a library class")
+    public boolean teamClass;
+
+    @Label("Instrumented Size")
+    @DataAmount
+    public int instrumentedBytes;
+}
@@ -0,0 +1,24 @@
+package battlecode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Finishing, compressing and writing a game's replay. Committed by GameMaker.
+ */
+@Name("battlecode.ReplayWrite")
+@Label("Replay Write")
+@Category({"Battlecode", "Server"})
+@Description("Writing a game's replay file")
+public class ReplayWriteEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,36 @@
+package battlecode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A robot's turn, from the engine's processing at the beginning of the turn
+ * to its processing at the end. Committed by GameWorld. There is one of these
+ * for every turn, so they are recorded without stack traces, which would
+ * always be the same anyway.
+ */
+@Name("battlecode.RobotTurn")
+@Label("Robot Turn")
+@Category({"Battlecode", "Engine"})
+@Description("A robot's turn, including the engine's processing around it")
+@StackTrace(false)
+public class RobotTurnEvent extends jdk.jfr.Event {
+
+    @Label("Robot ID")
+    public int robotID;
+
+    @Label("Team")
+    public String team;
+
+    @Label("Unit Type")
+    public String unitType;
+
+    @Label("Round")
+    public int round;
+
+    @Label("Bytecodes Used")
+    public int bytecodesUsed;
+}
@@ -0,0 +1,23 @@
+package battlecode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The creation of a robot's sandbox, which loads its monitor and starts its
+ * thread. Committed by SandboxedRobotPlayer.
+ */
+@Name("battlecode.SandboxCreation")
+@Label("Sandbox Creation")
+@Category({"Battlecode", "Instrumenter"})
+@Description("Setting up the sandbox a robot's player runs in")
+public class SandboxCreationEvent extends jdk.jfr.Event {
+
+    @Label("Robot ID")
+    public int robotID;
+
+    @Label("Team Package")
+    public String teamPackage;
+}
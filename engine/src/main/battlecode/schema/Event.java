@@ -37,8 +37,13 @@ public final class Event {
    * There should only be one GameFooter, at the end of the stream.
    */
   public static final byte GameFooter = 5;
+  /**
+   * An optional full snapshot of the match state, sent right after the
+   * Round it describes.
+   */
+  public static final byte Keyframe = 6;
 
-  public static final String[] names = { "NONE", "GameHeader", "MatchHeader", "Round", "MatchFooter", "GameFooter", };
+  public static final String[] names = { "NONE", "GameHeader", "MatchHeader", "Round", "MatchFooter", "GameFooter", "Keyframe", };
 
   public static String name(int e) { return names[e]; }
 }
@@ -61,19 +61,30 @@ public final class GameWrapper extends Table {
   public IntVector matchFootersVector(IntVector obj) { int o = __offset(8); return o != 0 ? obj.__assign(__vector(o), bb) : null; }
   public ByteBuffer matchFootersAsByteBuffer() { return __vector_as_bytebuffer(8, 4); }
   public ByteBuffer matchFootersInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 8, 4); }
+  /**
+   * The indices of the keyframes of all matches, in order.
+   */
+  public int keyframes(int j) { int o = __offset(10); return o != 0 ? bb.getInt(__vector(o) + j * 4) : 0; }
+  public int keyframesLength() { int o = __offset(10); return o != 0 ? __vector_len(o) : 0; }
+  public IntVector keyframesVector() { return keyframesVector(new IntVector()); }
+  public IntVector keyframesVector(IntVector obj) { int o = __offset(10); return o != 0 ? obj.__assign(__vector(o), bb) : null; }
+  public ByteBuffer keyframesAsByteBuffer() { return __vector_as_bytebuffer(10, 4); }
+  public ByteBuffer keyframesInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 10, 4); }
 
   public static int createGameWrapper(FlatBufferBuilder builder,
       int eventsOffset,
       int matchHeadersOffset,
-      int matchFootersOffset) {
-    builder.startTable(3);
+      int matchFootersOffset,
+      int keyframesOffset) {
+    builder.startTable(4);
+    GameWrapper.addKeyframes(builder, keyframesOffset);
     GameWrapper.addMatchFooters(builder, matchFootersOffset);
     GameWrapper.addMatchHeaders(builder, matchHeadersOffset);
     GameWrapper.addEvents(builder, eventsOffset);
     return GameWrapper.endGameWrapper(builder);
   }
 
-  public static void startGameWrapper(FlatBufferBuilder builder) { builder.startTable(3); }
+  public static void startGameWrapper(FlatBufferBuilder builder) { builder.startTable(4); }
   public static void addEvents(FlatBufferBuilder builder, int eventsOffset) { builder.addOffset(0, eventsOffset, 0); }
   public static int createEventsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
   public static void startEventsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
@@ -83,6 +94,9 @@ public final class GameWrapper extends Table {
   public static void addMatchFooters(FlatBufferBuilder builder, int matchFootersOffset) { builder.addOffset(2, matchFootersOffset, 0); }
   public static int createMatchFootersVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
   public static void startMatchFootersVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addKeyframes(FlatBufferBuilder builder, int keyframesOffset) { builder.addOffset(3, keyframesOffset, 0); }
+  public static int createKeyframesVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
+  public static void startKeyframesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
   public static int endGameWrapper(FlatBufferBuilder builder) {
     int o = builder.endTable();
     return o;
@@ -58,14 +58,38 @@ public final class MatchFooter extends Table {
   public int profilerFilesLength() { int o = __offset(12); return o != 0 ? __vector_len(o) : 0; }
   public battlecode.schema.ProfilerFile.Vector profilerFilesVector() { return profilerFilesVector(new battlecode.schema.ProfilerFile.Vector()); }
   public battlecode.schema.ProfilerFile.Vector profilerFilesVector(battlecode.schema.ProfilerFile.Vector obj) { int o = __offset(12); return o != 0 ? obj.__assign(__vector(o), 4, bb) : null; }
+  /**
+   * The names of the files the profiler data for team A and B was streamed
+   * to, relative to the replay, if profiles were streamed instead of being
+   * stored in profilerFiles. Each file is a gzip stream of size-prefixed
+   * ProfilerFile chunks; chunks may hold part of a profile, and the last one
+   * holds the frames.
+   */
+  public String profilerStreams(int j) { int o = __offset(14); return o != 0 ? __string(__vector(o) + j * 4) : null; }
+  public int profilerStreamsLength() { int o = __offset(14); return o != 0 ? __vector_len(o) : 0; }
+  public StringVector profilerStreamsVector() { return profilerStreamsVector(new StringVector()); }
+  public StringVector profilerStreamsVector(StringVector obj) { int o = __offset(14); return o != 0 ? obj.__assign(__vector(o), 4, bb) : null; }
+  /**
+   * The name of the file robot output for this match was written to,
+   * relative to the replay, if robot logs were saved. The file is a gzip
+   * stream of records, each a big-endian int round, int robot ID and int
+   * length followed by that many bytes of UTF-8 output.
+   */
+  public String robotLog() { int o = __offset(16); return o != 0 ? __string(o + bb_pos) : null; }
+  public ByteBuffer robotLogAsByteBuffer() { return __vector_as_bytebuffer(16, 1); }
+  public ByteBuffer robotLogInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 16, 1); }
 
   public static int createMatchFooter(FlatBufferBuilder builder,
       byte winner,
       byte winType,
       int totalRounds,
       int timelineMarkersOffset,
-      int profilerFilesOffset) {
-    builder.startTable(5);
+      int profilerFilesOffset,
+      int profilerStreamsOffset,
+      int robotLogOffset) {
+    builder.startTable(7);
+    MatchFooter.addRobotLog(builder, robotLogOffset);
+    MatchFooter.addProfilerStreams(builder, profilerStreamsOffset);
     MatchFooter.addProfilerFiles(builder, profilerFilesOffset);
     MatchFooter.addTimelineMarkers(builder, timelineMarkersOffset);
     MatchFooter.addTotalRounds(builder, totalRounds);
@@ -74,7 +98,7 @@ public final class MatchFooter extends Table {
     return MatchFooter.endMatchFooter(builder);
   }
 
-  public static void startMatchFooter(FlatBufferBuilder builder) { builder.startTable(5); }
+  public static void startMatchFooter(FlatBufferBuilder builder) { builder.startTable(7); }
   public static void addWinner(FlatBufferBuilder builder, byte winner) { builder.addByte(0, winner, 0); }
   public static void addWinType(FlatBufferBuilder builder, byte winType) { builder.addByte(1, winType, 0); }
   public static void addTotalRounds(FlatBufferBuilder builder, int totalRounds) { builder.addInt(2, totalRounds, 0); }
@@ -84,6 +108,10 @@ public final class MatchFooter extends Table {
   public static void addProfilerFiles(FlatBufferBuilder builder, int profilerFilesOffset) { builder.addOffset(4, profilerFilesOffset, 0); }
   public static int createProfilerFilesVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
   public static void startProfilerFilesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addProfilerStreams(FlatBufferBuilder builder, int profilerStreamsOffset) { builder.addOffset(5, profilerStreamsOffset, 0); }
+  public static int createProfilerStreamsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
+  public static void startProfilerStreamsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addRobotLog(FlatBufferBuilder builder, int robotLogOffset) { builder.addOffset(6, robotLogOffset, 0); }
   public static int endMatchFooter(FlatBufferBuilder builder) {
     int o = builder.endTable();
     return o;
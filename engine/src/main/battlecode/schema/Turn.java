@@ -45,6 +45,13 @@ public final class Turn extends Table {
   public int actionsLength() { int o = __offset(22); return o != 0 ? __vector_len(o) : 0; }
   public UnionVector actionsVector() { return actionsVector(new UnionVector()); }
   public UnionVector actionsVector(UnionVector obj) { int o = __offset(22); return o != 0 ? obj.__assign(__vector(o), 4, bb) : null; }
+  /**
+   * If the Delta bit is set, only the fields whose TurnField bits are set
+   * were written; every other field is unchanged since the robot's previous
+   * Turn (or the latest Keyframe, whichever came last). If zero, every field
+   * was written.
+   */
+  public int changedFields() { int o = __offset(24); return o != 0 ? bb.get(o + bb_pos) & 0xFF : 0; }
 
   public static int createTurn(FlatBufferBuilder builder,
       int robotId,
@@ -56,8 +63,9 @@ public final class Turn extends Table {
       int x,
       int y,
       int actionsTypeOffset,
-      int actionsOffset) {
-    builder.startTable(10);
+      int actionsOffset,
+      int changedFields) {
+    builder.startTable(11);
     Turn.addActions(builder, actionsOffset);
     Turn.addActionsType(builder, actionsTypeOffset);
     Turn.addBytecodesUsed(builder, bytecodesUsed);
@@ -66,12 +74,13 @@ public final class Turn extends Table {
     Turn.addPaint(builder, paint);
     Turn.addHealth(builder, health);
     Turn.addRobotId(builder, robotId);
+    Turn.addChangedFields(builder, changedFields);
     Turn.addY(builder, y);
     Turn.addX(builder, x);
     return Turn.endTurn(builder);
   }
 
-  public static void startTurn(FlatBufferBuilder builder) { builder.startTable(10); }
+  public static void startTurn(FlatBufferBuilder builder) { builder.startTable(11); }
   public static void addRobotId(FlatBufferBuilder builder, int robotId) { builder.addInt(0, robotId, 0); }
   public static void addHealth(FlatBufferBuilder builder, int health) { builder.addInt(1, health, 0); }
   public static void addPaint(FlatBufferBuilder builder, int paint) { builder.addInt(2, paint, 0); }
@@ -86,6 +95,7 @@ public final class Turn extends Table {
   public static void addActions(FlatBufferBuilder builder, int actionsOffset) { builder.addOffset(9, actionsOffset, 0); }
   public static int createActionsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
   public static void startActionsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addChangedFields(FlatBufferBuilder builder, int changedFields) { builder.addByte(10, (byte) changedFields, (byte) 0); }
   public static int endTurn(FlatBufferBuilder builder) {
     int o = builder.endTable();
     return o;
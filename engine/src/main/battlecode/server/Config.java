@@ -34,14 +34,41 @@ public class Config {
         defaults.setProperty("bc.server.port", "6175");
         defaults.setProperty("bc.server.wait-for-client", "false");
 
+        // The number of events that may wait to be sent to websocket clients.
+        // When it is reached, the match waits for the clients to catch up.
+        defaults.setProperty("bc.server.stream-queue-size", "2000");
+        // The maximum number of events to coalesce into one websocket message.
+        // 1 sends every event in its own message.
+        defaults.setProperty("bc.server.stream-batch-size", "1");
+
         // Whether to write robot player output to System.out as well as match files.
         defaults.setProperty("bc.server.robot-player-to-system-out", "true");
 
+        // The number of bytes of robot player output that may wait to be written
+        // to System.out, and what to do when that fills up: "block" waits for
+        // the console to catch up, "drop" drops the output and counts it.
+        defaults.setProperty("bc.server.console-queue-bytes", "4194304");
+        defaults.setProperty("bc.server.console-policy", "block");
+
+        // Whether to save robot player output for each match to a file next to
+        // the replay, instead of discarding it. See RobotLogReader.
+        defaults.setProperty("bc.server.robot-log", "false");
+
+        // Write the turns, bytecodes, spawns, deaths, replay size, GC time, peak
+        // memory and phase timings of each match to a JSON file next to the
+        // replay. See MatchMetrics.
+        defaults.setProperty("bc.server.match-metrics", "false");
+
         // The max number of bytes to write to a replay file, per team
         // -1 means infinity
         // This does not affect output to stdout
         defaults.setProperty("bc.server.robot-player-replay-file-per-team-limit-bytes","-1");
 
+        // The number of threads to gzip replay files with. With more than one,
+        // the replay is written as several concatenated gzip members.
+        // 0 means one per available processor.
+        defaults.setProperty("bc.server.compression-threads", "1");
+
         defaults.setProperty("bc.server.save-file", "match.rms");
         defaults.setProperty("bc.server.transcribe-input", "match.rms");
         defaults.setProperty("bc.server.transcribe-output", "transcribed.txt");
@@ -63,8 +90,41 @@ public class Config {
         defaults.setProperty("bc.engine.silence-d", "false");
         defaults.setProperty("bc.engine.debug-methods", "false");
         defaults.setProperty("bc.engine.enable-profiler", "false");
+        // With the profiler enabled, the number of bytecodes between samples of
+        // each robot's call stack. 0 traces every method call instead, up to a
+        // limit of events per team per match.
+        defaults.setProperty("bc.engine.profiler-sample-interval", "0");
+        // With the profiler enabled, stream each team's profiles to a file next
+        // to the replay as they are recorded, instead of storing them in the
+        // replay. The viewer doesn't read these files; see ProfilerStreamReader.
+        defaults.setProperty("bc.engine.profiler-stream", "false");
+        // Time the phases of every round and write a JSON summary next to the
+        // replay at the end of each match. See PhaseTimer.
+        defaults.setProperty("bc.engine.phase-timings", "false");
+        // Log robot turns that spend more than this many milliseconds in the
+        // player's own code, or in engine API calls, and sum up each team's
+        // turn times at the end of each match. 0 disables a limit; with both
+        // disabled, turns aren't watched. See TurnWatchdog.
+        defaults.setProperty("bc.engine.watchdog.robot-code-millis", "0");
+        defaults.setProperty("bc.engine.watchdog.engine-api-millis", "0");
+        // Print histograms of the bytecodes used per turn by each team's
+        // robots of each type at the end of each match. See BytecodeHistograms.
+        defaults.setProperty("bc.engine.bytecode-histograms", "false");
+        // Write the bytecodes used per turn in every window of this many
+        // rounds to a CSV file next to the replay. 0 disables windows.
+        defaults.setProperty("bc.engine.bytecode-histogram-window", "0");
         defaults.setProperty("bc.engine.show-indicators", "true");
 
+        // Write a full-state keyframe into the replay every this many rounds.
+        // 0 disables keyframes.
+        defaults.setProperty("bc.engine.keyframe-interval", "0");
+
+        // Only write the fields of each robot turn that changed since its
+        // previous turn, see battlecode.util.TurnDecoder. Engine-only: the
+        // client can't decode these turns yet, so leave this off for replays
+        // that will be watched.
+        defaults.setProperty("bc.engine.delta-turns", "false");
+
         defaults.setProperty("bc.game.team-a", "team000");
         defaults.setProperty("bc.game.team-b", "team000");
         defaults.setProperty("bc.game.maps", "glass");
@@ -1,5 +1,7 @@
 package battlecode.server;
 
+import battlecode.instrumenter.stream.ConsoleWriter;
+
 // TODO: pass messages along to the client
 public class ErrorReporter {
 
@@ -39,6 +41,7 @@ public class ErrorReporter {
     }
 
     private static void printStackTrace(Throwable e) {
+        ConsoleWriter.drainIfStarted();
         System.err.println("Stack trace: ");
         e.printStackTrace(System.err);
     }
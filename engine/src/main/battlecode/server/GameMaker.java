@@ -7,24 +7,26 @@ import battlecode.common.Team;
 import battlecode.instrumenter.profiler.Profiler;
 import battlecode.instrumenter.profiler.ProfilerCollection;
 import battlecode.instrumenter.profiler.ProfilerEventType;
+import battlecode.jfr.ReplayWriteEvent;
 import battlecode.schema.*;
 import battlecode.util.FlatHelpers;
+import battlecode.util.ParallelGzip;
 import battlecode.util.TeamMapping;
+import battlecode.util.TurnDecoder;
 import battlecode.world.*;
 import com.google.flatbuffers.FlatBufferBuilder;
 import gnu.trove.list.array.TByteArrayList;
 import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import java.util.List;
 import java.util.ArrayList;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.util.function.ToIntFunction;
 import java.util.function.Consumer;
-import java.util.zip.GZIPOutputStream;
 
 import static battlecode.util.FlatHelpers.*;
 
@@ -98,6 +100,7 @@ public class GameMaker {
     private TIntArrayList events;
     private TIntArrayList matchHeaders;
     private TIntArrayList matchFooters;
+    private TIntArrayList keyframes;
 
     /**
      * The MatchMaker associated with this GameMaker.
@@ -110,11 +113,38 @@ public class GameMaker {
     private final boolean showIndicators;
 
     /**
-     * @param gameInfo       the mapping of teams to bytes
-     * @param packetSink     the NetServer to send packets to
-     * @param showIndicators whether to write indicator dots and lines to replay
+     * Number of rounds between keyframes, or 0 to never write keyframes.
      */
-    public GameMaker(final GameInfo gameInfo, final NetServer packetSink, final boolean showIndicators) {
+    private final int keyframeInterval;
+
+    /**
+     * Whether to only write the fields of a Turn that changed since the robot's
+     * previous Turn.
+     */
+    private final boolean deltaTurns;
+
+    /**
+     * The path, without extension, to write each match's robot logs to,
+     * or null to discard them.
+     */
+    private final String robotLogPrefix;
+
+    /**
+     * The number of threads to gzip the finished game with.
+     */
+    private final int compressionThreads;
+
+    /**
+     * Reads bc.engine.show-indicators, bc.engine.keyframe-interval,
+     * bc.engine.delta-turns, bc.server.robot-log and
+     * bc.server.compression-threads from options. Robot logs are written
+     * next to the game's save file, so a game that isn't saved discards them.
+     *
+     * @param gameInfo   the mapping of teams to bytes
+     * @param packetSink the NetServer to send packets to
+     * @param options    the configuration to write the game with
+     */
+    public GameMaker(final GameInfo gameInfo, final NetServer packetSink, final Config options) {
         this.state = State.GAME_HEADER;
 
         this.gameInfo = gameInfo;
@@ -129,10 +159,17 @@ public class GameMaker {
         this.events = new TIntArrayList();
         this.matchHeaders = new TIntArrayList();
         this.matchFooters = new TIntArrayList();
+        this.keyframes = new TIntArrayList();
 
         this.matchMaker = new MatchMaker();
 
-        this.showIndicators = showIndicators;
+        this.showIndicators = options.getBoolean("bc.engine.show-indicators");
+        this.keyframeInterval = options.getInt("bc.engine.keyframe-interval");
+        this.deltaTurns = options.getBoolean("bc.engine.delta-turns");
+        this.robotLogPrefix = options.getBoolean("bc.server.robot-log") ? Server.sideFilePrefix(gameInfo) : null;
+        int compressionThreads = options.getInt("bc.server.compression-threads");
+        this.compressionThreads = compressionThreads > 0 ? compressionThreads
+                : Runtime.getRuntime().availableProcessors();
     }
 
     /**
@@ -167,23 +204,19 @@ public class GameMaker {
             int events = GameWrapper.createEventsVector(fileBuilder, this.events.toArray());
             int matchHeaders = GameWrapper.createMatchHeadersVector(fileBuilder, this.matchHeaders.toArray());
             int matchFooters = GameWrapper.createMatchFootersVector(fileBuilder, this.matchFooters.toArray());
+            int keyframes = GameWrapper.createKeyframesVector(fileBuilder, this.keyframes.toArray());
 
             GameWrapper.startGameWrapper(fileBuilder);
             GameWrapper.addEvents(fileBuilder, events);
             GameWrapper.addMatchHeaders(fileBuilder, matchHeaders);
             GameWrapper.addMatchFooters(fileBuilder, matchFooters);
+            GameWrapper.addKeyframes(fileBuilder, keyframes);
 
             fileBuilder.finish(GameWrapper.endGameWrapper(fileBuilder));
             byte[] rawBytes = fileBuilder.sizedByteArray();
 
             try {
-                ByteArrayOutputStream result = new ByteArrayOutputStream();
-                GZIPOutputStream zipper = new GZIPOutputStream(result);
-                IOUtils.copy(new ByteArrayInputStream(rawBytes), zipper);
-                zipper.close();
-                zipper.flush();
-                result.flush();
-                finishedGame = result.toByteArray();
+                finishedGame = ParallelGzip.compress(rawBytes, compressionThreads);
             } catch (IOException e) {
                 throw new RuntimeException("Gzipping failed?", e);
             }
@@ -201,11 +234,28 @@ public class GameMaker {
             throw new RuntimeException("Null file provided to writeGame");
         }
 
+        ReplayWriteEvent event = new ReplayWriteEvent();
+        event.begin();
+        byte[] bytes = toBytes();
         try {
-            FileUtils.writeByteArrayToFile(saveFile, toBytes());
+            FileUtils.writeByteArrayToFile(saveFile, bytes);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = saveFile.getPath();
+            event.bytes = bytes.length;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return the number of bytes of the uncompressed replay written so far
+     */
+    public int getReplayBytes() {
+        return fileBuilder.offset();
     }
 
     /**
@@ -352,9 +402,18 @@ public class GameMaker {
         private ArrayList<String> timelineMarkerLabels;
         private ArrayList<Integer> timelineMarkerColors;
 
+        // The last state written for each robot, by id, when delta encoding turns.
+        private TIntObjectHashMap<int[]> lastTurnStates;
+
         // Used to write logs.
         private final ByteArrayOutputStream logger;
 
+        // Where the logs of the current match are saved; null if they are discarded.
+        private RobotLogWriter robotLog;
+
+        // The robot whose turn it is, which everything in the logger was printed by.
+        private int turnRobotID;
+
         public MatchMaker() {
             this.teamIDs = new TIntArrayList();
             this.teamMoneyAmounts = new TIntArrayList();
@@ -367,11 +426,20 @@ public class GameMaker {
             this.timelineMarkerRounds = new ArrayList<>();
             this.timelineMarkerLabels = new ArrayList<>();
             this.timelineMarkerColors = new ArrayList<>();
+            this.lastTurnStates = new TIntObjectHashMap<>();
         }
 
         public void makeMatchHeader(LiveMap gameMap) {
             changeState(State.IN_GAME, State.IN_MATCH);
             this.currentMapWidth = gameMap.getWidth();
+            if (robotLogPrefix != null) {
+                File logFile = new File(robotLogPrefix + "-match" + matchHeaders.size() + ".bclog");
+                try {
+                    this.robotLog = new RobotLogWriter(logFile);
+                } catch (IOException e) {
+                    ErrorReporter.report(e, "Can't write robot logs to " + logFile + ", they will be lost", false);
+                }
+            }
             createEvent((builder) -> {
                 int map = GameMapIO.Serial.serialize(builder, gameMap);
                 return EventWrapper.createEventWrapper(builder, Event.MatchHeader,
@@ -387,10 +455,27 @@ public class GameMaker {
                 List<ProfilerCollection> profilerCollections) {
             changeState(State.IN_MATCH, State.IN_GAME);
 
+            String robotLogName = null;
+            if (this.robotLog != null) {
+                saveLog();
+                if (this.robotLog != null) {
+                    robotLogName = this.robotLog.getFile().getName();
+                    closeLog();
+                }
+            }
+            final String robotLogFile = robotLogName;
+
             createEvent((builder) -> {
                 TIntArrayList profilerFiles = new TIntArrayList();
+                TIntArrayList profilerStreams = new TIntArrayList();
 
                 for (ProfilerCollection profilerCollection : profilerCollections) {
+                    if (profilerCollection.isStreaming()) {
+                        // the events are already in the side file
+                        profilerStreams.add(builder.createString(profilerCollection.getStreamFile().getName()));
+                        continue;
+                    }
+
                     TIntArrayList frames = new TIntArrayList();
                     TIntArrayList profiles = new TIntArrayList();
 
@@ -401,11 +486,11 @@ public class GameMaker {
                     for (Profiler profiler : profilerCollection.getProfilers()) {
                         TIntArrayList events = new TIntArrayList();
 
-                        for (battlecode.instrumenter.profiler.ProfilerEvent event : profiler.getEvents()) {
+                        for (int i = 0; i < profiler.getEventCount(); i++) {
                             ProfilerEvent.startProfilerEvent(builder);
-                            ProfilerEvent.addIsOpen(builder, event.getType() == ProfilerEventType.OPEN);
-                            ProfilerEvent.addAt(builder, event.getAt());
-                            ProfilerEvent.addFrame(builder, event.getFrameId());
+                            ProfilerEvent.addIsOpen(builder, profiler.getEventType(i) == ProfilerEventType.OPEN);
+                            ProfilerEvent.addAt(builder, profiler.getEventAt(i));
+                            ProfilerEvent.addFrame(builder, profiler.getEventFrameId(i));
                             events.add(ProfilerEvent.endProfilerEvent(builder));
                         }
 
@@ -425,6 +510,9 @@ public class GameMaker {
                 }
 
                 int profilerFilesOffset = MatchFooter.createProfilerFilesVector(builder, profilerFiles.toArray());
+                int profilerStreamsOffset = profilerStreams.isEmpty() ? 0
+                        : MatchFooter.createProfilerStreamsVector(builder, profilerStreams.toArray());
+                int robotLogOffset = robotLogFile == null ? 0 : builder.createString(robotLogFile);
 
                 TIntArrayList timelineMarkerOffsets = new TIntArrayList();
                 for (int i = 0; i < this.timelineMarkerRounds.size(); i++){
@@ -436,7 +524,8 @@ public class GameMaker {
 
                 return EventWrapper.createEventWrapper(builder, Event.MatchFooter,
                         MatchFooter.createMatchFooter(builder, TeamMapping.id(winTeam),
-                                FlatHelpers.getWinTypeFromDominationFactor(winType), totalRounds, timelineMarkersOffset, profilerFilesOffset));
+                                FlatHelpers.getWinTypeFromDominationFactor(winType), totalRounds, timelineMarkersOffset, profilerFilesOffset,
+                                profilerStreamsOffset, robotLogOffset));
             });
 
             matchFooters.add(events.size() - 1);
@@ -450,11 +539,37 @@ public class GameMaker {
             } catch (IOException e) {
                 throw new RuntimeException("Can't flush byte[]outputstream?", e);
             }
-            // byte[] logs = this.logger.toByteArray();
+            saveLog();
             this.logger.reset();
             this.currentRound = roundNum;
         }
 
+        /**
+         * Write everything printed since the last call to the robot log, if
+         * logs are being saved, attributed to the robot whose turn it is.
+         */
+        private void saveLog() {
+            if (this.robotLog == null || this.logger.size() == 0) {
+                return;
+            }
+            try {
+                this.robotLog.write(this.currentRound, this.turnRobotID, this.logger);
+            } catch (IOException e) {
+                ErrorReporter.report(e, "Can't write robot logs to " + this.robotLog.getFile() + ", the rest will be lost", false);
+                closeLog();
+            }
+            this.logger.reset();
+        }
+
+        private void closeLog() {
+            try {
+                this.robotLog.close();
+            } catch (IOException e) {
+                ErrorReporter.report(e, "Can't write robot logs to " + this.robotLog.getFile(), false);
+            }
+            this.robotLog = null;
+        }
+
         public void endRound(){
             createEvent((builder) -> {
                 // Round statistics
@@ -480,27 +595,159 @@ public class GameMaker {
             clearRoundData();
         }
 
+        /**
+         * @param roundNum the round that just ended
+         * @return whether a keyframe should be written after this round
+         */
+        public boolean shouldMakeKeyframe(int roundNum) {
+            return keyframeInterval > 0 && roundNum % keyframeInterval == 0;
+        }
+
+        /**
+         * Write a full snapshot of the world as it is at the end of the current round.
+         * Must be called after endRound(), so that readers see the keyframe right
+         * after the Round it describes.
+         *
+         * @param world the world to snapshot
+         */
+        public void makeKeyframe(GameWorld world) {
+            assertState(State.IN_MATCH);
+
+            byte[] paint = toByteArray(world.getPaintArray());
+            byte[] markersA = toByteArray(world.getmarkersArray(Team.A));
+            byte[] markersB = toByteArray(world.getmarkersArray(Team.B));
+
+            List<InternalRobot> robots = new ArrayList<>();
+            world.getObjectInfo().eachDynamicBodyByExecOrder((robot) -> {
+                robots.add(robot);
+                return true;
+            });
+
+            if (deltaTurns) {
+                // Turns after a keyframe are relative to it, so readers can start there
+                this.lastTurnStates.clear();
+                for (InternalRobot robot : robots) {
+                    this.lastTurnStates.put(robot.getID(), turnState(robot.getHealth(), robot.getPaint(),
+                            robot.getMovementCooldownTurns(), robot.getActionCooldownTurns(),
+                            robot.getBytecodesUsed(), robot.getLocation()));
+                }
+            }
+
+            Team[] teams = { Team.A, Team.B };
+            int[] teamIds = new int[teams.length];
+            int[] resourceAmounts = new int[teams.length];
+            int[] coverageAmounts = new int[teams.length];
+            int[] resourcePatternAmounts = new int[teams.length];
+            for (int i = 0; i < teams.length; i++) {
+                teamIds[i] = TeamMapping.id(teams[i]);
+                resourceAmounts[i] = world.getTeamInfo().getMoney(teams[i]);
+                coverageAmounts[i] = world.getTeamCoverage(teams[i]);
+                resourcePatternAmounts[i] = world.getNumResourcePatterns(teams[i]);
+            }
+
+            createEvent((builder) -> {
+                int paintP = Keyframe.createPaintVector(builder, paint);
+                int markersAP = Keyframe.createTeamAMarkersVector(builder, markersA);
+                int markersBP = Keyframe.createTeamBMarkersVector(builder, markersB);
+
+                Keyframe.startRobotsVector(builder, robots.size());
+                for (int i = robots.size() - 1; i >= 0; i--) {
+                    InternalRobot robot = robots.get(i);
+                    MapLocation loc = robot.getLocation();
+                    KeyframeRobot.createKeyframeRobot(builder, robot.getID(), robot.getHealth(), robot.getPaint(),
+                            robot.getMovementCooldownTurns(), robot.getActionCooldownTurns(), robot.getBytecodesUsed(),
+                            loc.x, loc.y, TeamMapping.id(robot.getTeam()),
+                            FlatHelpers.getRobotTypeFromUnitType(robot.getType()), (byte) robot.getType().level);
+                }
+                int robotsP = builder.endVector();
+
+                int teamIdsP = Keyframe.createTeamIdsVector(builder, teamIds);
+                int resourceAmountsP = Keyframe.createTeamResourceAmountsVector(builder, resourceAmounts);
+                int coverageAmountsP = Keyframe.createTeamCoverageAmountsVector(builder, coverageAmounts);
+                int resourcePatternAmountsP = Keyframe.createTeamResourcePatternAmountsVector(builder, resourcePatternAmounts);
+
+                int keyframe = Keyframe.createKeyframe(builder, this.currentRound, paintP, markersAP, markersBP,
+                        robotsP, teamIdsP, resourceAmountsP, coverageAmountsP, resourcePatternAmountsP);
+                return EventWrapper.createEventWrapper(builder, Event.Keyframe, keyframe);
+            });
+
+            keyframes.add(events.size() - 1);
+        }
+
+        private byte[] toByteArray(int[] values) {
+            byte[] result = new byte[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = (byte) values[i];
+            }
+            return result;
+        }
+
         public void startTurn(int robotID){
-            return;
+            saveLog();
+            this.turnRobotID = robotID;
         }
 
         public void endTurn(int robotID, int health, int paint, int movementCooldown, int actionCooldown, int bytecodesUsed, MapLocation loc){
+            int changedFields = 0;
+            if (deltaTurns) {
+                changedFields = diffTurnState(robotID,
+                        turnState(health, paint, movementCooldown, actionCooldown, bytecodesUsed, loc));
+            }
+            final int changed = changedFields;
+            saveLog();
+
             applyToBuilders((builder) -> {
                 builder.startTurn();
 
                 Turn.addRobotId(builder, robotID);
-                Turn.addHealth(builder, health);
-                Turn.addPaint(builder, paint);
-                Turn.addMoveCooldown(builder, movementCooldown);
-                Turn.addActionCooldown(builder, actionCooldown);
-                Turn.addBytecodesUsed(builder, bytecodesUsed);
-                Turn.addX(builder, loc.x);
-                Turn.addY(builder, loc.y);
+                if (changed == 0 || (changed & TurnField.Health) != 0)
+                    Turn.addHealth(builder, health);
+                if (changed == 0 || (changed & TurnField.Paint) != 0)
+                    Turn.addPaint(builder, paint);
+                if (changed == 0 || (changed & TurnField.MoveCooldown) != 0)
+                    Turn.addMoveCooldown(builder, movementCooldown);
+                if (changed == 0 || (changed & TurnField.ActionCooldown) != 0)
+                    Turn.addActionCooldown(builder, actionCooldown);
+                if (changed == 0 || (changed & TurnField.BytecodesUsed) != 0)
+                    Turn.addBytecodesUsed(builder, bytecodesUsed);
+                if (changed == 0 || (changed & TurnField.X) != 0)
+                    Turn.addX(builder, loc.x);
+                if (changed == 0 || (changed & TurnField.Y) != 0)
+                    Turn.addY(builder, loc.y);
+                Turn.addChangedFields(builder, changed);
 
                 builder.finishTurn();
             });
         }
 
+        private int[] turnState(int health, int paint, int movementCooldown, int actionCooldown, int bytecodesUsed, MapLocation loc) {
+            int[] state = new int[TurnDecoder.NUM_FIELDS];
+            state[TurnDecoder.HEALTH] = health;
+            state[TurnDecoder.PAINT] = paint;
+            state[TurnDecoder.MOVE_COOLDOWN] = movementCooldown;
+            state[TurnDecoder.ACTION_COOLDOWN] = actionCooldown;
+            state[TurnDecoder.BYTECODES_USED] = bytecodesUsed;
+            state[TurnDecoder.X] = loc.x;
+            state[TurnDecoder.Y] = loc.y;
+            return state;
+        }
+
+        /**
+         * Remember the new state of a robot and compute which fields changed.
+         *
+         * @return the TurnField bits of the changed fields, plus the Delta bit
+         */
+        private int diffTurnState(int robotID, int[] state) {
+            int[] last = this.lastTurnStates.put(robotID, state);
+            int changedFields = TurnField.Delta;
+            for (int i = 0; i < TurnDecoder.NUM_FIELDS; i++) {
+                if (last == null || last[i] != state[i]) {
+                    changedFields |= TurnDecoder.FIELD_BITS[i];
+                }
+            }
+            return changedFields;
+        }
+
         /**
          * @return an outputstream that will be baked into the output file
          */
@@ -705,6 +952,7 @@ public class GameMaker {
 
         private void clearMatchData() {
             clearRoundData();
+            this.lastTurnStates.clear();
             this.timelineMarkerTeams.clear();
             this.timelineMarkerColors.clear();
             this.timelineMarkerLabels.clear();
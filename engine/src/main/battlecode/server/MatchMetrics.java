@@ -0,0 +1,127 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.world.GameStats;
+import battlecode.world.GameWorld;
+import battlecode.world.TurnWatchdog;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Measures a match for bc.server.match-metrics, which writes the result
+ * next to the replay as JSON: the robot turns, bytecodes, spawns and deaths
+ * of each team, the size of the match in the uncompressed replay, the wall
+ * time, garbage collection and peak memory use of the JVM, the histograms of
+ * bytecodes used per turn (see BytecodeHistograms), and the phase timings
+ * and turn times if those are enabled.
+ *
+ * Created when the match starts, which resets the peak usage of the memory
+ * pools. GC time only counts the collectors that pause the application, not
+ * those that run alongside it.
+ */
+public class MatchMetrics {
+
+    private final GameMaker gameMaker;
+    private final long startNanos;
+    private final int startReplayBytes;
+    private final long startGcCount;
+    private final long startGcMillis;
+
+    public MatchMetrics(GameMaker gameMaker) {
+        this.gameMaker = gameMaker;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        long[] gc = gcTotals();
+        this.startGcCount = gc[0];
+        this.startGcMillis = gc[1];
+        this.startReplayBytes = gameMaker.getReplayBytes();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Finish measuring the match.
+     *
+     * @param game         the game the match is part of
+     * @param mapName      the map of the match
+     * @param world        the finished match
+     * @param turnWatchdog the match's turn watchdog, or null
+     * @return the metrics of the match as a JSON object
+     */
+    public String toJson(GameInfo game, String mapName, GameWorld world, TurnWatchdog turnWatchdog) {
+        long wallNanos = System.nanoTime() - startNanos;
+        long[] gc = gcTotals();
+        long peakHeap = 0;
+        long peakMetaspace = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            } else if (pool.getName().equals("Metaspace")) {
+                peakMetaspace = pool.getPeakUsage().getUsed();
+            }
+        }
+        GameStats stats = world.getGameStats();
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"map\":\"").append(mapName);
+        json.append("\",\"teamA\":\"").append(game.getTeamAPackage());
+        json.append("\",\"teamB\":\"").append(game.getTeamBPackage());
+        json.append("\",\"winner\":");
+        // a match that hasn't finished has no winner yet
+        json.append(world.getWinner() == null ? "null" : "\"" + world.getWinner() + "\"");
+        json.append(",\"rounds\":").append(world.getCurrentRound());
+        json.append(",\"turns\":").append(stats.getTurns(Team.A) + stats.getTurns(Team.B));
+        json.append(",\"bytecodes\":").append(stats.getBytecodes(Team.A) + stats.getBytecodes(Team.B));
+        json.append(",\"replayBytes\":").append(gameMaker.getReplayBytes() - startReplayBytes);
+        json.append(",\"wallNanos\":").append(wallNanos);
+        json.append(",\"gcCount\":").append(gc[0] - startGcCount);
+        json.append(",\"gcPauseMillis\":").append(gc[1] - startGcMillis);
+        json.append(",\"peakHeapBytes\":").append(peakHeap);
+        json.append(",\"peakMetaspaceBytes\":").append(peakMetaspace);
+        json.append(",\"teams\":{");
+        for (Team team : new Team[] {Team.A, Team.B}) {
+            if (team == Team.B) {
+                json.append(',');
+            }
+            json.append('"').append(team).append("\":{");
+            json.append("\"turns\":").append(stats.getTurns(team));
+            json.append(",\"bytecodes\":").append(stats.getBytecodes(team));
+            json.append(",\"spawns\":").append(stats.getSpawns(team));
+            json.append(",\"deaths\":").append(stats.getDeaths(team));
+            if (turnWatchdog != null) {
+                TurnWatchdog.TeamTotals totals = turnWatchdog.getTotals(team);
+                json.append(",\"robotCodeNanos\":").append(totals.robotCodeNanos);
+                json.append(",\"engineApiNanos\":").append(totals.engineApiNanos);
+                json.append(",\"slowTurns\":").append(totals.slowTurns);
+            }
+            json.append('}');
+        }
+        json.append('}');
+        json.append(",\"bytecodeHistograms\":").append(world.getBytecodeHistograms().toJson());
+        if (world.getPhaseTimer() != null) {
+            json.append(",\"phaseTimings\":").append(world.getPhaseTimer().toJson());
+        }
+        json.append('}');
+        return json.toString();
+    }
+
+    /**
+     * @return the number of collections that pause the application so far,
+     *         and their total time in milliseconds
+     */
+    private static long[] gcTotals() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // concurrent collectors, such as G1's, don't pause the application
+            if (gc.getName().contains("Concurrent") || gc.getName().contains("Cycles")) {
+                continue;
+            }
+            totals[0] += Math.max(0, gc.getCollectionCount());
+            totals[1] += Math.max(0, gc.getCollectionTime());
+        }
+        return totals;
+    }
+}
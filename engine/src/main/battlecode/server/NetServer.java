@@ -1,64 +1,136 @@
 package battlecode.server;
 
+import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
 import org.java_websocket.WebSocket;
 import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.ClosedByInterruptException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Serve a battlecode match over a websocket connection.
  *
- * Sends one battlecode event per websocket message; ignores incoming messages.
+ * By default, sends one battlecode event per websocket message. With a batch
+ * size above 1, events that are waiting to be sent are coalesced into a single
+ * binary message, each prefixed with its length as a little-endian int; the
+ * server announces this with a "batched" text message when a client connects.
+ * Ignores incoming messages.
+ *
+ * Events are handed from the simulation to the sending thread through a bounded
+ * queue. When it fills up, the simulation waits for the clients to catch up;
+ * events are never dropped, since the viewer applies Rounds in sequence.
+ *
+ * Only the current game's header and the current match are kept for clients
+ * that connect late; they are caught up on the sending thread, between two
+ * broadcasts, so other clients keep receiving events in the meantime. A client
+ * that connects with "snapshot" in its URL (e.g. ws://localhost:6175/snapshot)
+ * is caught up with the GameHeader, the MatchHeader, the latest Keyframe and
+ * the events after it, instead of the whole match.
  *
  * @author james
  */
 public class NetServer extends WebSocketServer {
 
+    public static final int DEFAULT_QUEUE_SIZE = 2000;
+
+    /**
+     * The text message sent to clients when events are batched.
+     */
+    public static final String BATCHED_MESSAGE = "batched";
+
+    // The events a late client needs, only touched by the queue thread:
+    // the current game's header, and the current match's events starting
+    // with its header.
+    private byte[] gameHeader;
     private final List<byte[]> previousEvents;
+    /**
+     * The index of the latest Keyframe in previousEvents, or -1 if none.
+     */
+    private int latestKeyframe = -1;
+
     private final BlockingQueue<byte[]> incomingEvents;
 
+    /**
+     * Clients that have connected but not been caught up yet.
+     */
+    private final BlockingQueue<JoiningClient> joiningClients;
+    /**
+     * Clients that have been caught up, only touched by the queue thread.
+     */
+    private final List<WebSocket> clients;
+
     private boolean waitForClient;
 
+    private final int batchSize;
+
+    // Stream statistics, reported when the server finishes.
+    // Only touched by the thread adding events.
+    private int maxQueueDepth = 0;
+    private long blockedEvents = 0;
+
     private boolean done = false;
     private boolean connected = false;
 
     private Thread queueThread;
 
     /**
-     * Create a new server.
+     * Create a new server that sends one event per message and blocks
+     * when clients fall behind.
      * @param port
      */
     public NetServer(int port, boolean waitForClient) {
+        this(port, waitForClient, DEFAULT_QUEUE_SIZE, 1);
+    }
+
+    /**
+     * Create a new server.
+     * @param port
+     * @param waitForClient  whether start() should wait for a client to connect
+     * @param queueSize      the number of events that may wait to be sent
+     * @param batchSize      the maximum number of events per message
+     */
+    public NetServer(int port, boolean waitForClient, int queueSize, int batchSize) {
         super(new InetSocketAddress(port));
 
         this.waitForClient = waitForClient;
+        this.batchSize = Math.max(1, batchSize);
 
         previousEvents = new ArrayList<>();
-        incomingEvents = new ArrayBlockingQueue<>(2000);
+        incomingEvents = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        joiningClients = new LinkedBlockingQueue<>();
+        clients = new ArrayList<>();
 
         queueThread = new Thread(() -> {
             try {
+                List<byte[]> batch = new ArrayList<>(this.batchSize);
                 while (!done) {
                     byte[] event = incomingEvents.poll(300, TimeUnit.MILLISECONDS);
+                    admitJoiningClients();
                     if (event != null) {
-                        processEvent(event);
+                        batch.add(event);
+                        incomingEvents.drainTo(batch, this.batchSize - 1);
+                        processEvents(batch);
+                        batch.clear();
                     }
                 }
-                while (incomingEvents.size() > 0) {
-                    byte[] event = incomingEvents.remove();
-                    processEvent(event);
+                while (incomingEvents.drainTo(batch, this.batchSize) > 0) {
+                    processEvents(batch);
+                    batch.clear();
                 }
             } catch(Exception e) {
                 ErrorReporter.report(e, true);
             }
-        });
+        }, "netserver-queue");
     }
 
     /**
@@ -96,7 +168,36 @@ public class NetServer extends WebSocketServer {
         if (done) {
             throw new RuntimeException("Can't add event, server already finished");
         }
-        incomingEvents.add(event);
+
+        if (!incomingEvents.offer(event)) {
+            blockedEvents++;
+            try {
+                incomingEvents.put(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for clients", e);
+            }
+        }
+        maxQueueDepth = Math.max(maxQueueDepth, incomingEvents.size());
+    }
+
+    private static byte eventType(byte[] event) {
+        ByteBuffer buffer = ByteBuffer.wrap(event).order(ByteOrder.LITTLE_ENDIAN);
+        return EventWrapper.getRootAsEventWrapper(buffer).eType();
+    }
+
+    /**
+     * @return the number of events waiting to be sent
+     */
+    public int getQueueDepth() {
+        return incomingEvents.size();
+    }
+
+    /**
+     * @return the largest number of events that have waited to be sent at once
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
     }
 
     /**
@@ -118,35 +219,132 @@ public class NetServer extends WebSocketServer {
         } catch (Exception e) {
             ErrorReporter.report(e, true);
         }
+
+        if (blockedEvents > 0) {
+            System.out.println("[server] Websocket clients fell behind: max queue depth " + maxQueueDepth
+                    + "/" + (maxQueueDepth + incomingEvents.remainingCapacity()) + ", "
+                    + blockedEvents + " events waited");
+        }
     }
 
     // implementation details
 
-    // Two threads: one polling websocket stuff, one awaiting queue inputs
-    // When there's a new client, we lock, all events are sent to client, we unlock
-    // When there is a queue input, we lock, all clients receive event, we unlock
-    // There may still be thread-safety issues here:
-    //
-    // onOpen
-
-    private void processEvent(byte[] event) {
-        synchronized (connections()) {
-            for (WebSocket client : connections()) {
-                client.send(event);
+    // Two threads: one polling websocket stuff, one awaiting queue inputs.
+    // The websocket thread only hands new clients to the queue thread, which
+    // does all the sending: it catches new clients up between two batches of
+    // events, so that every client sees every event exactly once, in order.
+
+    private void processEvents(List<byte[]> events) {
+        admitJoiningClients();
+        if (batchSize == 1) {
+            for (byte[] event : events) {
+                broadcast(ByteBuffer.wrap(event));
             }
-            previousEvents.add(event);
+        } else {
+            broadcast(batch(events));
+        }
+        for (byte[] event : events) {
+            record(event);
         }
     }
 
-    @Override
-    public void onOpen(WebSocket client, ClientHandshake handshake) {
-        synchronized (connections()) {
-            connected = true;
+    private void broadcast(ByteBuffer message) {
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            WebSocket client = clients.get(i);
+            if (client.isOpen()) {
+                client.send(message.duplicate());
+            } else {
+                clients.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Keep the events a late client will need.
+     */
+    private void record(byte[] event) {
+        switch (eventType(event)) {
+            case Event.GameHeader:
+                gameHeader = event;
+                previousEvents.clear();
+                latestKeyframe = -1;
+                return;
+            case Event.MatchHeader:
+                previousEvents.clear();
+                latestKeyframe = -1;
+                break;
+            case Event.Keyframe:
+                latestKeyframe = previousEvents.size();
+                break;
+            default:
+                break;
+        }
+        previousEvents.add(event);
+    }
+
+    private void admitJoiningClients() {
+        JoiningClient joining;
+        while ((joining = joiningClients.poll()) != null) {
+            if (!joining.client.isOpen()) {
+                continue;
+            }
+            List<byte[]> catchUp = new ArrayList<>();
+            if (gameHeader != null) {
+                catchUp.add(gameHeader);
+            }
+            if (joining.snapshot && latestKeyframe > 0) {
+                catchUp.add(previousEvents.get(0));
+                catchUp.addAll(previousEvents.subList(latestKeyframe, previousEvents.size()));
+            } else {
+                catchUp.addAll(previousEvents);
+            }
 
-            for (byte[] event : previousEvents) {
-                client.send(event);
+            if (batchSize == 1) {
+                for (byte[] event : catchUp) {
+                    joining.client.send(event);
+                }
+            } else {
+                joining.client.send(BATCHED_MESSAGE);
+                for (int i = 0; i < catchUp.size(); i += batchSize) {
+                    joining.client.send(batch(catchUp.subList(i, Math.min(catchUp.size(), i + batchSize))));
+                }
             }
+            clients.add(joining.client);
+        }
+    }
+
+    /**
+     * Pack events into one message, each prefixed with its length.
+     */
+    private static ByteBuffer batch(List<byte[]> events) {
+        int size = 0;
+        for (byte[] event : events) {
+            size += 4 + event.length;
         }
+        ByteBuffer message = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        for (byte[] event : events) {
+            message.putInt(event.length);
+            message.put(event);
+        }
+        message.flip();
+        return message;
+    }
+
+    private static final class JoiningClient {
+        final WebSocket client;
+        final boolean snapshot;
+
+        JoiningClient(WebSocket client, boolean snapshot) {
+            this.client = client;
+            this.snapshot = snapshot;
+        }
+    }
+
+    @Override
+    public void onOpen(WebSocket client, ClientHandshake handshake) {
+        connected = true;
+        String resource = handshake.getResourceDescriptor();
+        joiningClients.add(new JoiningClient(client, resource != null && resource.contains("snapshot")));
     }
 
     @Override
@@ -0,0 +1,295 @@
+package battlecode.server;
+
+import battlecode.schema.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a replay file written by GameMaker without decoding it up front.
+ *
+ * A gzipped replay is inflated once into a temporary file, which is then
+ * memory-mapped; uncompressed replays are mapped directly. Events are read
+ * lazily through the flatbuffer accessors, so the heap cost of a reader does
+ * not depend on the size of the replay.
+ *
+ * The iteration methods reuse a single flyweight object for every event they
+ * visit. Don't hold on to the objects passed to a callback; copy out what you
+ * need instead.
+ *
+ * Readers are not thread safe, but several readers may be used in parallel.
+ */
+public class ReplayReader implements Closeable {
+
+    /**
+     * The mapped, uncompressed replay.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The temporary file holding the inflated replay; null if the replay
+     * was mapped directly.
+     */
+    private final Path tempFile;
+
+    private final GameWrapper wrapper;
+
+    /**
+     * The index of each match's header and footer in the event list.
+     */
+    private final int[] matchHeaders;
+    private final int[] matchFooters;
+
+    /**
+     * The index of every keyframe in the event list, in order.
+     */
+    private final int[] keyframes;
+
+    /**
+     * Open a replay file.
+     *
+     * @param replay the replay to read, gzipped or not
+     * @throws IOException if the file can't be read
+     */
+    public ReplayReader(File replay) throws IOException {
+        Path source = replay.toPath();
+        if (isGzipped(source)) {
+            this.tempFile = Files.createTempFile("replay", ".bin");
+            try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(source)), 1 << 16)) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                this.buffer = map(tempFile);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+        } else {
+            this.tempFile = null;
+            this.buffer = map(source);
+        }
+
+        this.wrapper = GameWrapper.getRootAsGameWrapper(buffer);
+        this.matchHeaders = toArray(wrapper.matchHeadersVector());
+        this.matchFooters = toArray(wrapper.matchFootersVector());
+        this.keyframes = toArray(wrapper.keyframesVector());
+    }
+
+    private static boolean isGzipped(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Replay too large to map: " + channel.size() + " bytes");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return mapped;
+        }
+    }
+
+    private static int[] toArray(com.google.flatbuffers.IntVector vector) {
+        if (vector == null) {
+            return new int[0];
+        }
+        int[] result = new int[vector.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = vector.get(i);
+        }
+        return result;
+    }
+
+    // ****************************
+    // *** INDEX ******************
+    // ****************************
+
+    /**
+     * @return the number of events in the replay
+     */
+    public int getEventCount() {
+        return wrapper.eventsLength();
+    }
+
+    /**
+     * @return the number of matches in the replay
+     */
+    public int getMatchCount() {
+        return Math.min(matchHeaders.length, matchFooters.length);
+    }
+
+    /**
+     * @param match the index of the match
+     * @return the index of the match's MatchHeader in the event list
+     */
+    public int getMatchHeaderIndex(int match) {
+        return matchHeaders[match];
+    }
+
+    /**
+     * @param match the index of the match
+     * @return the index of the match's MatchFooter in the event list
+     */
+    public int getMatchFooterIndex(int match) {
+        return matchFooters[match];
+    }
+
+    /**
+     * @return the indices of every keyframe in the event list, in order;
+     *         empty if the replay was written without keyframes
+     */
+    public int[] getKeyframeIndices() {
+        return keyframes.clone();
+    }
+
+    // ****************************
+    // *** EVENT ACCESS ***********
+    // ****************************
+
+    /**
+     * @param index the index of the event
+     * @return the type of the event, as an Event constant
+     */
+    public byte getEventType(int index) {
+        return wrapper.events(index).eType();
+    }
+
+    /**
+     * Read an event into an existing wrapper, without allocating.
+     *
+     * @param index the index of the event
+     * @param obj   the wrapper to read into
+     * @return obj
+     */
+    public EventWrapper getEvent(int index, EventWrapper obj) {
+        return wrapper.events(obj, index);
+    }
+
+    public GameHeader getGameHeader() {
+        return (GameHeader) wrapper.events(0).e(new GameHeader());
+    }
+
+    public GameFooter getGameFooter() {
+        return (GameFooter) wrapper.events(getEventCount() - 1).e(new GameFooter());
+    }
+
+    public MatchHeader getMatchHeader(int match) {
+        return (MatchHeader) wrapper.events(matchHeaders[match]).e(new MatchHeader());
+    }
+
+    public MatchFooter getMatchFooter(int match) {
+        return (MatchFooter) wrapper.events(matchFooters[match]).e(new MatchFooter());
+    }
+
+    /**
+     * Find the latest keyframe of a match taken at or before a round.
+     *
+     * @param match   the index of the match
+     * @param roundId the round to seek to
+     * @return the index of the keyframe in the event list, or the index of the
+     *         match header if there is no such keyframe
+     */
+    public int getKeyframeIndexBefore(int match, int roundId) {
+        int header = matchHeaders[match];
+        int footer = matchFooters[match];
+        int best = header;
+        Keyframe keyframe = new Keyframe();
+        EventWrapper event = new EventWrapper();
+        for (int index : keyframes) {
+            if (index <= header) {
+                continue;
+            }
+            if (index >= footer) {
+                break;
+            }
+            wrapper.events(event, index).e(keyframe);
+            if (keyframe.roundId() > roundId) {
+                break;
+            }
+            best = index;
+        }
+        return best;
+    }
+
+    // ****************************
+    // *** ITERATION **************
+    // ****************************
+
+    /**
+     * Visit the events in a range, reusing one wrapper for all of them.
+     *
+     * @param from the index of the first event to visit
+     * @param to   the index after the last event to visit
+     * @param op   called with each event
+     */
+    public void forEachEvent(int from, int to, Consumer<EventWrapper> op) {
+        EventWrapper event = new EventWrapper();
+        for (int i = from; i < to; i++) {
+            op.accept(wrapper.events(event, i));
+        }
+    }
+
+    /**
+     * Visit every Round of a match in order, reusing one Round for all of them.
+     *
+     * @param match the index of the match
+     * @param op    called with each round
+     */
+    public void forEachRound(int match, Consumer<Round> op) {
+        forEachRound(matchHeaders[match] + 1, matchFooters[match], op);
+    }
+
+    /**
+     * Visit the Rounds among a range of events, reusing one Round for all of them.
+     *
+     * @param from the index of the first event to visit
+     * @param to   the index after the last event to visit
+     * @param op   called with each round
+     */
+    public void forEachRound(int from, int to, Consumer<Round> op) {
+        Round round = new Round();
+        forEachEvent(from, to, (event) -> {
+            if (event.eType() == Event.Round) {
+                event.e(round);
+                op.accept(round);
+            }
+        });
+    }
+
+    /**
+     * Visit every Turn of a match in order, reusing one Turn for all of them.
+     *
+     * @param match the index of the match
+     * @param op    called with each turn
+     */
+    public void forEachTurn(int match, Consumer<Turn> op) {
+        Turn turn = new Turn();
+        forEachRound(match, (round) -> {
+            int turns = round.turnsLength();
+            for (int i = 0; i < turns; i++) {
+                op.accept(round.turns(turn, i));
+            }
+        });
+    }
+
+    /**
+     * Delete the temporary file, if any. The reader can't be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        if (tempFile != null) {
+            // The mapping stays valid until it is garbage collected, even once
+            // the file is deleted.
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package battlecode.server;
+
+import battlecode.schema.*;
+import battlecode.util.TurnDecoder;
+import com.google.flatbuffers.Table;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntByteHashMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Aggregates per-team statistics over a directory of replays, into CSV.
+ * <p/>
+ * Usage:<br>
+ * <code>java battlecode.server.ReplayStats ${replay dir} [${output.csv}] [${threads}]</code><br>
+ * Writes one row per team per match to the output file (or stdout if none is
+ * given). Replays are read in parallel, with one thread per core by default,
+ * and the rows are written in replay file name order.
+ */
+public class ReplayStats {
+
+    public static final String CSV_HEADER = "replay,match,map,team,teamName,won,winType,rounds," +
+            "finalResources,finalCoverage,finalResourcePatterns,meanCoverage,maxCoverage," +
+            "turns,meanBytecodes,p50Bytecodes,p90Bytecodes,p99Bytecodes,maxBytecodes";
+
+    /**
+     * The team ids that stats are collected for, in output order.
+     */
+    private static final byte[] TEAM_IDS = {1, 2};
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: battlecode.server.ReplayStats ${replay dir} [${output.csv}] [${threads}]");
+            System.exit(1);
+        }
+
+        File[] replays = new File(args[0]).listFiles((dir, name) -> name.endsWith(".bc25"));
+        if (replays == null) {
+            System.err.println("Not a directory: " + args[0]);
+            System.exit(1);
+        }
+        Arrays.sort(replays);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        try (PrintStream out = args.length > 1 ? new PrintStream(args[1]) : System.out) {
+            out.println(CSV_HEADER);
+            int failed = analyzeAll(replays, threads, out);
+            if (failed > 0) {
+                System.err.println(failed + " of " + replays.length + " replays could not be read");
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("Can't write output: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Analyze replays in parallel and print their rows in order.
+     *
+     * @return the number of replays that could not be read
+     */
+    public static int analyzeAll(File[] replays, int threads, PrintStream out) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        int failed = 0;
+        try {
+            List<Future<List<String>>> results = new ArrayList<>(replays.length);
+            for (File replay : replays) {
+                results.add(pool.submit(() -> analyze(replay)));
+            }
+            for (int i = 0; i < replays.length; i++) {
+                try {
+                    for (String row : results.get(i).get()) {
+                        out.println(row);
+                    }
+                } catch (ExecutionException e) {
+                    System.err.println("Can't read " + replays[i] + ": " + e.getCause());
+                    failed++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        return failed;
+    }
+
+    /**
+     * @param replay the replay to analyze
+     * @return one CSV row per team per match
+     */
+    public static List<String> analyze(File replay) throws IOException {
+        List<String> rows = new ArrayList<>();
+        try (ReplayReader reader = new ReplayReader(replay)) {
+            GameHeader gameHeader = reader.getGameHeader();
+            String[] teamNames = new String[TEAM_IDS.length + 1];
+            for (int i = 0; i < gameHeader.teamsLength(); i++) {
+                TeamData team = gameHeader.teams(i);
+                teamNames[team.teamId()] = team.name();
+            }
+
+            for (int match = 0; match < reader.getMatchCount(); match++) {
+                MatchStats stats = new MatchStats(reader.getMatchHeader(match));
+                reader.forEachEvent(reader.getMatchHeaderIndex(match) + 1, reader.getMatchFooterIndex(match), stats::add);
+                MatchFooter footer = reader.getMatchFooter(match);
+
+                for (byte team : TEAM_IDS) {
+                    rows.add(stats.toRow(replay.getName(), match, team, teamNames[team], footer));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Statistics for one match, accumulated one event at a time.
+     */
+    private static class MatchStats {
+        private final String mapName;
+        private final TIntByteHashMap robotTeams = new TIntByteHashMap();
+        private final TurnDecoder decoder = new TurnDecoder();
+
+        private final int[] finalResources = new int[TEAM_IDS.length + 1];
+        private final int[] finalCoverage = new int[TEAM_IDS.length + 1];
+        private final int[] finalResourcePatterns = new int[TEAM_IDS.length + 1];
+        private final long[] totalCoverage = new long[TEAM_IDS.length + 1];
+        private final int[] maxCoverage = new int[TEAM_IDS.length + 1];
+        private final TIntArrayList[] bytecodes = new TIntArrayList[TEAM_IDS.length + 1];
+        private int rounds;
+
+        // Reused flyweights
+        private final Round round = new Round();
+        private final Turn turn = new Turn();
+        private final Keyframe keyframe = new Keyframe();
+        private final KeyframeRobot keyframeRobot = new KeyframeRobot();
+        private final SpawnAction spawn = new SpawnAction();
+        private final StructPosition action = new StructPosition();
+
+        MatchStats(MatchHeader header) {
+            this.mapName = header.map().name();
+            for (byte team : TEAM_IDS) {
+                bytecodes[team] = new TIntArrayList();
+            }
+            InitialBodyTable bodies = header.map().initialBodies();
+            if (bodies != null) {
+                for (int i = 0; i < bodies.spawnActionsLength(); i++) {
+                    bodies.spawnActions(spawn, i);
+                    robotTeams.put(spawn.id(), spawn.team());
+                }
+            }
+        }
+
+        void add(EventWrapper event) {
+            if (event.eType() == Event.Round) {
+                addRound((Round) event.e(round));
+            } else if (event.eType() == Event.Keyframe) {
+                event.e(keyframe);
+                decoder.applyKeyframe(keyframe);
+                for (int i = 0; i < keyframe.robotsLength(); i++) {
+                    keyframe.robots(keyframeRobot, i);
+                    robotTeams.put(keyframeRobot.id(), keyframeRobot.team());
+                }
+            }
+        }
+
+        private void addRound(Round round) {
+            rounds++;
+            for (int i = 0; i < round.teamIdsLength(); i++) {
+                int team = round.teamIds(i);
+                if (team < 0 || team >= finalResources.length) {
+                    continue;
+                }
+                finalResources[team] = round.teamResourceAmounts(i);
+                finalCoverage[team] = round.teamCoverageAmounts(i);
+                finalResourcePatterns[team] = round.teamResourcePatternAmounts(i);
+                totalCoverage[team] += finalCoverage[team];
+                maxCoverage[team] = Math.max(maxCoverage[team], finalCoverage[team]);
+            }
+
+            for (int i = 0; i < round.turnsLength(); i++) {
+                round.turns(turn, i);
+                for (int j = 0; j < turn.actionsTypeLength(); j++) {
+                    if (turn.actionsType(j) == Action.SpawnAction) {
+                        turn.actions(action, j);
+                        spawn.__assign(action.position(), action.getByteBuffer());
+                        robotTeams.put(spawn.id(), spawn.team());
+                    }
+                }
+
+                int[] state = decoder.decode(turn);
+                byte team = robotTeams.get(turn.robotId());
+                if (team > 0 && team < bytecodes.length) {
+                    bytecodes[team].add(state[TurnDecoder.BYTECODES_USED]);
+                }
+            }
+        }
+
+        String toRow(String replayName, int match, byte team, String teamName, MatchFooter footer) {
+            TIntArrayList used = bytecodes[team];
+            used.sort();
+            long totalBytecodes = 0;
+            for (int i = 0; i < used.size(); i++) {
+                totalBytecodes += used.get(i);
+            }
+
+            return String.join(",",
+                    csv(replayName),
+                    Integer.toString(match),
+                    csv(mapName),
+                    Byte.toString(team),
+                    csv(teamName),
+                    Boolean.toString(footer.winner() == team),
+                    WinType.name(footer.winType()),
+                    Integer.toString(rounds),
+                    Integer.toString(finalResources[team]),
+                    Integer.toString(finalCoverage[team]),
+                    Integer.toString(finalResourcePatterns[team]),
+                    String.format(Locale.ROOT, "%.1f", rounds == 0 ? 0.0 : totalCoverage[team] / (double) rounds),
+                    Integer.toString(maxCoverage[team]),
+                    Integer.toString(used.size()),
+                    String.format(Locale.ROOT, "%.1f", used.isEmpty() ? 0.0 : totalBytecodes / (double) used.size()),
+                    Integer.toString(percentile(used, 50)),
+                    Integer.toString(percentile(used, 90)),
+                    Integer.toString(percentile(used, 99)),
+                    Integer.toString(used.isEmpty() ? 0 : used.get(used.size() - 1)));
+        }
+    }
+
+    /**
+     * @param sorted values in ascending order
+     * @return the nearest-rank percentile of the values, or 0 if there are none
+     */
+    private static int percentile(TIntArrayList sorted, int percent) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    /**
+     * Actions are structs inside a union, which the generated accessors can only
+     * hand out as Tables; this records where one is so it can be read as a struct.
+     */
+    private static final class StructPosition extends Table {
+        @Override
+        protected void __reset(int _i, ByteBuffer _bb) {
+            bb_pos = _i;
+            bb = _bb;
+        }
+
+        int position() {
+            return bb_pos;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package battlecode.server;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads robot logs written by RobotLogWriter.
+ * <p/>
+ * Usage:<br>
+ * <code>java battlecode.server.RobotLogReader ${log file} [${robot id}] [${first round}] [${last round}]</code><br>
+ * Prints the output of every robot, or only of the given robot, optionally
+ * limited to a range of rounds. A robot id of 0 matches every robot.
+ */
+public class RobotLogReader implements Closeable {
+
+    /**
+     * Called with each record that matches.
+     */
+    public interface Visitor {
+        /**
+         * @param round   the round the output was printed in
+         * @param robotID the robot that printed it
+         * @param output  the output; reused for the next record, so copy it to keep it
+         * @param length  the number of bytes of output
+         */
+        void visit(int round, int robotID, byte[] output, int length);
+    }
+
+    private final DataInputStream in;
+
+    private byte[] buffer = new byte[1024];
+
+    /**
+     * @param file the log to read
+     * @throws IOException if the file can't be opened
+     */
+    public RobotLogReader(File file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file), RobotLogWriter.BUFFER_SIZE)));
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 4) {
+            System.err.println("Usage: battlecode.server.RobotLogReader ${log file} [${robot id}] [${first round}] [${last round}]");
+            System.exit(1);
+        }
+
+        int robotID = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        int firstRound = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int lastRound = args.length > 3 ? Integer.parseInt(args[3]) : Integer.MAX_VALUE;
+
+        try (RobotLogReader reader = new RobotLogReader(new File(args[0]))) {
+            PrintStream out = System.out;
+            reader.read(robotID, firstRound, lastRound, (round, id, output, length) -> out.write(output, 0, length));
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Can't read " + args[0] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Visit the records that match, in the order they were written. Records
+     * are read as they are visited, so this can only be called once.
+     *
+     * @param robotID    the robot to visit the output of, or 0 for every robot
+     * @param firstRound the first round to visit
+     * @param lastRound  the last round to visit
+     * @param visitor    called with each matching record
+     * @throws IOException if the log can't be read or is truncated
+     */
+    public void read(int robotID, int firstRound, int lastRound, Visitor visitor) throws IOException {
+        while (true) {
+            int round;
+            try {
+                round = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            int id = in.readInt();
+            int length = in.readInt();
+            if (round > lastRound) {
+                // records are written in round order
+                return;
+            }
+            if (round < firstRound || (robotID != 0 && id != robotID)) {
+                in.skipNBytes(length);
+                continue;
+            }
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            in.readFully(buffer, 0, length);
+            visitor.visit(round, id, buffer, length);
+        }
+    }
+
+    /**
+     * Read every record that matches into a string.
+     *
+     * @see #read(int, int, int, Visitor)
+     */
+    public String readString(int robotID, int firstRound, int lastRound) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        read(robotID, firstRound, lastRound, (round, id, output, length) -> result.write(output, 0, length));
+        return result.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
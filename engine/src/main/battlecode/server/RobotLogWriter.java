@@ -0,0 +1,82 @@
+package battlecode.server;
+
+import java.io.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes robot output for one match to a gzipped side file, as it is printed.
+ *
+ * The file is a sequence of records, each a big-endian int round, int robot
+ * ID and int length followed by that many bytes of output, in the order the
+ * output was printed. Consecutive output from the same robot in the same round
+ * is written as one record. At most BUFFER_SIZE bytes of output are held in
+ * memory before being compressed.
+ *
+ * See RobotLogReader.
+ */
+public class RobotLogWriter implements Closeable {
+
+    /**
+     * The size of the buffers in front of and behind the compressor.
+     */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private final File file;
+    private final DataOutputStream out;
+
+    private long recordCount;
+    private long byteCount;
+
+    /**
+     * @param file the file to write to; replaced if it exists
+     * @throws IOException if the file can't be opened
+     */
+    public RobotLogWriter(File file) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+    }
+
+    /**
+     * Write everything printed so far by a robot as one record.
+     *
+     * @param round   the round the output was printed in
+     * @param robotID the robot that printed it
+     * @param output  the output; left untouched
+     * @throws IOException if the file can't be written
+     */
+    public void write(int round, int robotID, ByteArrayOutputStream output) throws IOException {
+        if (output.size() == 0) {
+            return;
+        }
+        out.writeInt(round);
+        out.writeInt(robotID);
+        out.writeInt(output.size());
+        output.writeTo(out);
+        recordCount++;
+        byteCount += output.size();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of records written
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return the number of bytes of output written, not counting record headers
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
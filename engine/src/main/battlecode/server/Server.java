@@ -1,5 +1,6 @@
 package battlecode.server;
 
+import battlecode.instrumenter.stream.ConsoleWriter;
 import battlecode.world.maps.*;
 
 import battlecode.common.Direction;
@@ -10,8 +11,11 @@ import battlecode.common.Team;
 import battlecode.world.*;
 import battlecode.world.control.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -61,6 +65,12 @@ public class Server implements Runnable {
      */
     private GameWorld currentWorld;
 
+    /**
+     * The number of lines of robot output the console had dropped by the end
+     * of the previous match.
+     */
+    private long droppedConsoleLines;
+
 
     /**
      * The server's mode affects how notifications are handled, whether or not
@@ -132,11 +142,16 @@ public class Server implements Runnable {
         final NetServer netServer;
         if (options.getBoolean("bc.server.websocket")) {
             netServer = new NetServer(options.getInt("bc.server.port"),
-                                      options.getBoolean("bc.server.wait-for-client"));
+                                      options.getBoolean("bc.server.wait-for-client"),
+                                      options.getInt("bc.server.stream-queue-size"),
+                                      options.getInt("bc.server.stream-batch-size"));
             netServer.start();
         } else {
             netServer = null;
         }
+        if (options.getBoolean("bc.engine.delta-turns")) {
+            warn("bc.engine.delta-turns is engine-only: the client can't play these replays, decode them with battlecode.util.TurnDecoder");
+        }
 
         while (true) {
             final GameInfo currentGame;
@@ -159,14 +174,19 @@ public class Server implements Runnable {
                 return;
             }
 
-            GameMaker gameMaker = new GameMaker(currentGame, netServer, options.getBoolean("bc.engine.show-indicators"));
+            String sideFilePrefix = sideFilePrefix(currentGame);
+
+            GameMaker gameMaker = new GameMaker(currentGame, netServer, options);
             gameMaker.makeGameHeader();
 
             debug("Running: "+currentGame);
 
             // Set up our control provider
             final boolean profilingEnabled = options.getBoolean("bc.engine.enable-profiler");
-            final RobotControlProvider prov = createControlProvider(currentGame, gameMaker, profilingEnabled);
+            final int profilerSampleInterval = options.getInt("bc.engine.profiler-sample-interval");
+            String profilerStreamPrefix = options.getBoolean("bc.engine.profiler-stream") ? sideFilePrefix : null;
+            final RobotControlProvider prov = createControlProvider(currentGame, gameMaker, profilingEnabled,
+                    profilerSampleInterval, profilerStreamPrefix);
 
             final boolean checkMapGuarantees = options.getBoolean("bc.server.validate-maps");
             final boolean alternateOrder = options.getBoolean("bc.server.alternate-order");
@@ -208,8 +228,25 @@ public class Server implements Runnable {
             }
             Team winner = aWins >= bWins ? Team.A : Team.B;
             gameMaker.makeGameFooter(winner);
+            long writeStart = System.currentTimeMillis();
             gameMaker.writeGame(currentGame.getSaveFile());
+            debug(String.format("replay written in %.4g seconds", (System.currentTimeMillis() - writeStart) / 1000.0));
+        }
+    }
+
+    /**
+     * Side files are written next to the replay, named after it.
+     *
+     * @return the replay's path without its extension, or null if the game isn't saved
+     */
+    static String sideFilePrefix(GameInfo game) {
+        if (game.getSaveFile() == null) {
+            return null;
         }
+        String saveFile = game.getSaveFile().getPath();
+        int extension = saveFile.lastIndexOf('.');
+        return extension > saveFile.lastIndexOf(File.separatorChar)
+                ? saveFile.substring(0, extension) : saveFile;
     }
 
     private int locationToIndex(LiveMap liveMap, int x, int y) {
@@ -257,7 +294,15 @@ public class Server implements Runnable {
         }
 
         // Create the game world!
-        currentWorld = new GameWorld(loadedMap, prov, gameMaker.getMatchMaker());
+        boolean phaseTimings = options.getBoolean("bc.engine.phase-timings");
+        double robotCodeMillis = Double.parseDouble(options.get("bc.engine.watchdog.robot-code-millis"));
+        double engineApiMillis = Double.parseDouble(options.get("bc.engine.watchdog.engine-api-millis"));
+        TurnWatchdog turnWatchdog = robotCodeMillis > 0 || engineApiMillis > 0
+                ? new TurnWatchdog((long) (robotCodeMillis * 1e6), (long) (engineApiMillis * 1e6), Server::warn)
+                : null;
+        // The watchdog gets its times from the phase timer
+        PhaseTimer phaseTimer = phaseTimings || turnWatchdog != null ? new PhaseTimer() : null;
+        currentWorld = new GameWorld(loadedMap, prov, gameMaker.getMatchMaker(), phaseTimer, turnWatchdog);
         
         if (checkMapGuarantees) {
             // Validate the map
@@ -278,6 +323,8 @@ public class Server implements Runnable {
             this.state = ServerState.RUNNING;
         }
 
+        MatchMetrics metrics = options.getBoolean("bc.server.match-metrics") ? new MatchMetrics(gameMaker) : null;
+        final int bytecodeWindow = options.getInt("bc.engine.bytecode-histogram-window");
         long startTime = System.currentTimeMillis();
         say("-------------------- Match Starting --------------------");
         say(String.format("%s vs. %s on %s", currentGame.getTeamAPackage(), currentGame.getTeamBPackage(), mapName));
@@ -292,6 +339,10 @@ public class Server implements Runnable {
 
                 case RUNNING:
                     GameState state = currentWorld.runRound();
+                    if (bytecodeWindow > 0 && (currentWorld.getCurrentRound() % bytecodeWindow == 0
+                            || GameState.DONE.equals(state))) {
+                        currentWorld.getBytecodeHistograms().endWindow(currentWorld.getCurrentRound());
+                    }
 
                     if (GameState.DONE.equals(state)) {
                         this.state = ServerState.FINISHED;
@@ -306,14 +357,113 @@ public class Server implements Runnable {
             }
         }
 
+        // Let robot output catch up, so it comes before the results
+        ConsoleWriter console = ConsoleWriter.getInstanceIfStarted();
+        if (console != null) {
+            console.drain();
+            long dropped = console.getDroppedLines() - droppedConsoleLines;
+            if (dropped > 0) {
+                warn(dropped + " lines of robot output were dropped because the console couldn't keep up");
+            }
+            droppedConsoleLines = console.getDroppedLines();
+        }
+
         say(getWinnerString(currentGame, currentWorld.getWinner(), currentWorld.getCurrentRound()));
         say("-------------------- Match Finished --------------------");
 
         double timeDiff = (System.currentTimeMillis() - startTime) / 1000.0;
         debug(String.format("match completed in %.4g seconds", timeDiff));
+        if (phaseTimings) {
+            writePhaseTimings(currentGame, matchIndex, phaseTimer);
+        }
+        if (turnWatchdog != null) {
+            say("turn times: " + turnWatchdog.summary(Team.A));
+            say("turn times: " + turnWatchdog.summary(Team.B));
+        }
+        if (options.getBoolean("bc.engine.bytecode-histograms")) {
+            for (String line : currentWorld.getBytecodeHistograms().summary()) {
+                say("bytecodes: " + line);
+            }
+        }
+        if (bytecodeWindow > 0) {
+            writeBytecodeWindows(currentGame, matchIndex, currentWorld.getBytecodeHistograms());
+        }
+        if (metrics != null) {
+            writeMatchMetrics(currentGame, matchIndex, metrics.toJson(currentGame, mapName, currentWorld, turnWatchdog));
+        }
         return currentWorld.getWinner();
     }
 
+    /**
+     * Write the bytecode use of each window of rounds of a match next to the
+     * replay, or to the console if the game isn't saved.
+     */
+    private void writeBytecodeWindows(GameInfo game, int matchIndex, BytecodeHistograms histograms) {
+        String prefix = sideFilePrefix(game);
+        if (prefix == null) {
+            ByteArrayOutputStream csv = new ByteArrayOutputStream();
+            histograms.writeWindowsCsv(new PrintStream(csv));
+            say("bytecodes per window:\n" + csv);
+            return;
+        }
+        File file = new File(prefix + "-match" + matchIndex + "-bytecodes.csv");
+        try (PrintStream out = new PrintStream(file)) {
+            histograms.writeWindowsCsv(out);
+        } catch (IOException e) {
+            warn("Can't write bytecode windows to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write a match's metrics next to the replay, or to the console if the
+     * game isn't saved.
+     */
+    private void writeMatchMetrics(GameInfo game, int matchIndex, String json) {
+        String prefix = sideFilePrefix(game);
+        if (prefix == null) {
+            say("match metrics: " + json);
+            return;
+        }
+        File file = new File(prefix + "-match" + matchIndex + "-metrics.json");
+        try {
+            Files.writeString(file.toPath(), json + "\n");
+            say("match metrics written to " + file);
+        } catch (IOException e) {
+            warn("Can't write match metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write a match's phase timings next to the replay, or to the console if
+     * the game isn't saved. The timings of every round are written to a CSV
+     * file as well, for plotting against the number of live robots.
+     */
+    private void writePhaseTimings(GameInfo game, int matchIndex, PhaseTimer phaseTimer) {
+        String json = phaseTimer.toJson();
+        String prefix = sideFilePrefix(game);
+        if (prefix == null) {
+            say("phase timings: " + json);
+            return;
+        }
+        File file = new File(prefix + "-match" + matchIndex + "-timings.json");
+        try {
+            Files.writeString(file.toPath(), json + "\n");
+            say(String.format("phase timings written to %s (robot code %.1f%%, engine %.1f%%)", file,
+                    100.0 * phaseTimer.getTotalNanos(PhaseTimer.Phase.ROBOT_CODE) / phaseTimer.getTotalNanos(PhaseTimer.Phase.ROUND),
+                    100.0 * (phaseTimer.getTotalNanos(PhaseTimer.Phase.ROUND) - phaseTimer.getTotalNanos(PhaseTimer.Phase.ROBOT_CODE))
+                            / phaseTimer.getTotalNanos(PhaseTimer.Phase.ROUND)));
+        } catch (IOException e) {
+            warn("Can't write phase timings to " + file + ": " + e.getMessage());
+        }
+
+        File roundsFile = new File(prefix + "-match" + matchIndex + "-rounds.csv");
+        try (PrintStream out = new PrintStream(roundsFile)) {
+            phaseTimer.writeRoundsCsv(out);
+        } catch (IOException e) {
+            warn("Can't write round timings to " + roundsFile + ": " + e.getMessage());
+        }
+    }
+
     // ******************************
     // ***** CREATOR METHODS ********
     // ******************************
@@ -324,11 +474,17 @@ public class Server implements Runnable {
      * @param game             the game to provide control for
      * @param gameMaker        the game maker containing the output streams for robot logs
      * @param profilingEnabled whether profiling is enabled or not
+     * @param profilerSampleInterval the number of bytecodes between profiler samples,
+     *                               or 0 to trace every method call
+     * @param profilerStreamPrefix   the path, without extension, to stream profiles to,
+     *                               or null to keep them in memory
      * @return a fresh control provider for the game
      */
     private RobotControlProvider createControlProvider(GameInfo game,
                                                        GameMaker gameMaker,
-                                                       boolean profilingEnabled) {
+                                                       boolean profilingEnabled,
+                                                       int profilerSampleInterval,
+                                                       String profilerStreamPrefix) {
         // Strictly speaking, this should probably be somewhere in battlecode.world
         // Whatever
 
@@ -341,7 +497,9 @@ public class Server implements Runnable {
                     game.getTeamAPackage(),
                     game.getTeamAURL(),
                     gameMaker.getMatchMaker().getOut(),
-                    profilingEnabled
+                    profilingEnabled,
+                    profilerSampleInterval,
+                    profilerStreamPrefix
                 )
         );
         teamProvider.registerControlProvider(
@@ -351,7 +509,9 @@ public class Server implements Runnable {
                     game.getTeamBPackage(),
                     game.getTeamBURL(),
                     gameMaker.getMatchMaker().getOut(),
-                    profilingEnabled
+                    profilingEnabled,
+                    profilerSampleInterval,
+                    profilerStreamPrefix
                 )
         );
         teamProvider.registerControlProvider(
@@ -456,6 +616,7 @@ public class Server implements Runnable {
      * @param msg the warning message to display
      */
     public static void warn(String msg) {
+        ConsoleWriter.drainIfStarted();
         for (String line : msg.split("\n")) {
             System.out.printf("[server:warning] %s\n", line);
         }
@@ -468,6 +629,7 @@ public class Server implements Runnable {
      * @param msg the message to display
      */
     public static void say(String msg) {
+        ConsoleWriter.drainIfStarted();
         for (String line : msg.split("\n")) {
             System.out.printf("[server] %s\n", line);
         }
@@ -480,6 +642,7 @@ public class Server implements Runnable {
      */
     public static void debug(String msg) {
         if (Config.getGlobalConfig().getBoolean("bc.server.debug")) {
+            ConsoleWriter.drainIfStarted();
             for (String line : msg.split("\n")) {
                 System.out.printf("[server:debug] %s\n", line);
             }
@@ -0,0 +1,83 @@
+package battlecode.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips a buffer on several threads.
+ *
+ * The buffer is split into blocks that are compressed independently, each into
+ * its own gzip member, and the members are concatenated. Concatenated members
+ * are a valid gzip file (RFC 1952), so the output can be read by any gzip
+ * consumer, including GZIPInputStream, pako and the gzip command line tool.
+ * The output is a little larger than a single-member gzip of the same data,
+ * since blocks can't refer back to each other.
+ */
+public final class ParallelGzip {
+
+    /**
+     * Blocks smaller than this aren't worth a thread of their own.
+     */
+    public static final int MIN_BLOCK_SIZE = 1 << 20;
+
+    private ParallelGzip() {}
+
+    /**
+     * Gzip a buffer.
+     *
+     * @param data    the bytes to compress
+     * @param threads the number of threads to use; 1 or less compresses on the
+     *                calling thread into a single gzip member
+     * @return the gzipped bytes
+     * @throws IOException if compression fails
+     */
+    public static byte[] compress(byte[] data, int threads) throws IOException {
+        int blockSize = Math.max(MIN_BLOCK_SIZE, (data.length + threads - 1) / Math.max(threads, 1));
+        int numBlocks = Math.max(1, (data.length + blockSize - 1) / blockSize);
+        if (threads <= 1 || numBlocks == 1) {
+            return compressBlock(data, 0, data.length);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, numBlocks), (r) -> {
+            Thread thread = new Thread(r, "gzip");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<byte[]>> blocks = new ArrayList<>(numBlocks);
+            for (int i = 0; i < numBlocks; i++) {
+                final int start = i * blockSize;
+                final int end = Math.min(data.length, start + blockSize);
+                blocks.add(pool.submit(() -> compressBlock(data, start, end)));
+            }
+
+            ByteArrayOutputStream result = new ByteArrayOutputStream(data.length / 4);
+            for (Future<byte[]> block : blocks) {
+                result.write(block.get());
+            }
+            return result.toByteArray();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while gzipping", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Gzipping block failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static byte[] compressBlock(byte[] data, int start, int end) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream((end - start) / 4 + 64);
+        try (GZIPOutputStream zipper = new GZIPOutputStream(result, 1 << 16)) {
+            zipper.write(data, start, end - start);
+        }
+        return result.toByteArray();
+    }
+}
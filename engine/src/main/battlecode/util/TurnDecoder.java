@@ -0,0 +1,111 @@
+package battlecode.util;
+
+import battlecode.schema.Keyframe;
+import battlecode.schema.KeyframeRobot;
+import battlecode.schema.Turn;
+import battlecode.schema.TurnField;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+/**
+ * Reference decoder for Turn records, which may be delta encoded
+ * (see bc.engine.delta-turns).
+ *
+ * A delta encoded Turn only carries the fields that changed since the same
+ * robot's previous Turn or the latest Keyframe, so decoding needs the last
+ * known state of every robot. Feed every Turn and Keyframe of a match to the
+ * decoder in replay order, and call reset() at every MatchHeader. A decoder
+ * may also be seeded from a Keyframe and then fed only the Turns after it.
+ *
+ * States are stored as int arrays indexed by the field constants below.
+ */
+public class TurnDecoder {
+
+    public static final int HEALTH = 0;
+    public static final int PAINT = 1;
+    public static final int MOVE_COOLDOWN = 2;
+    public static final int ACTION_COOLDOWN = 3;
+    public static final int BYTECODES_USED = 4;
+    public static final int X = 5;
+    public static final int Y = 6;
+    public static final int NUM_FIELDS = 7;
+
+    /**
+     * The TurnField bit for each field, indexed by the field constants.
+     */
+    public static final int[] FIELD_BITS = {
+            TurnField.Health,
+            TurnField.Paint,
+            TurnField.MoveCooldown,
+            TurnField.ActionCooldown,
+            TurnField.BytecodesUsed,
+            TurnField.X,
+            TurnField.Y
+    };
+
+    /**
+     * The last known state of each robot, by robot id.
+     */
+    private final TIntObjectHashMap<int[]> states = new TIntObjectHashMap<>();
+
+    /**
+     * Forget every robot; call at the start of each match.
+     */
+    public void reset() {
+        states.clear();
+    }
+
+    /**
+     * Replace the known state of every robot with the one in the keyframe.
+     *
+     * @param keyframe the keyframe to seed from
+     */
+    public void applyKeyframe(Keyframe keyframe) {
+        states.clear();
+        KeyframeRobot robot = new KeyframeRobot();
+        for (int i = 0; i < keyframe.robotsLength(); i++) {
+            keyframe.robots(robot, i);
+            int[] state = new int[NUM_FIELDS];
+            state[HEALTH] = robot.health();
+            state[PAINT] = robot.paint();
+            state[MOVE_COOLDOWN] = robot.moveCooldown();
+            state[ACTION_COOLDOWN] = robot.actionCooldown();
+            state[BYTECODES_USED] = robot.bytecodesUsed();
+            state[X] = robot.x();
+            state[Y] = robot.y();
+            states.put(robot.id(), state);
+        }
+    }
+
+    /**
+     * Decode a turn, updating the known state of its robot.
+     *
+     * @param turn the turn to decode
+     * @return the full state of the robot after the turn, indexed by the
+     *         field constants; owned by the decoder, so copy it to keep it
+     */
+    public int[] decode(Turn turn) {
+        int[] state = states.get(turn.robotId());
+        if (state == null) {
+            state = new int[NUM_FIELDS];
+            states.put(turn.robotId(), state);
+        }
+
+        int[] values = {
+                turn.health(),
+                turn.paint(),
+                turn.moveCooldown(),
+                turn.actionCooldown(),
+                turn.bytecodesUsed(),
+                turn.x(),
+                turn.y()
+        };
+        int changedFields = turn.changedFields();
+        boolean isDelta = (changedFields & TurnField.Delta) != 0;
+        for (int i = 0; i < NUM_FIELDS; i++) {
+            if (!isDelta || (changedFields & FIELD_BITS[i]) != 0) {
+                state[i] = values[i];
+            }
+        }
+        return state;
+    }
+}
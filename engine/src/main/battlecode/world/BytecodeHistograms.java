@@ -0,0 +1,279 @@
+package battlecode.world;
+
+import battlecode.common.Team;
+import battlecode.common.UnitType;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Histograms of the bytecodes used per turn by each team's robots of each
+ * unit type, with the number of turns that used up the robot's whole
+ * bytecode limit. Kept over the whole match, and over windows of rounds
+ * that the server closes every bc.engine.bytecode-histogram-window rounds.
+ *
+ * The histograms have HDR-style buckets: values below SUB_BUCKETS have a
+ * bucket each, and every power of two above that is split into SUB_BUCKETS
+ * equal buckets, so that values are known to within 1/SUB_BUCKETS of
+ * themselves however large they are.
+ */
+public class BytecodeHistograms {
+
+    public static final int SUB_BUCKETS = 16;
+
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    /**
+     * Enough buckets for any non-negative int.
+     */
+    private static final int NUM_BUCKETS = (32 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final Team[] TEAMS = {Team.A, Team.B};
+
+    private static final UnitType[] TYPES = UnitType.values();
+
+    public static final String WINDOWS_CSV_HEADER =
+            "firstRound,lastRound,team,type,turns,meanBytecodes,p50Bytecodes,p90Bytecodes,p99Bytecodes,maxBytecodes,turnsAtLimit";
+
+    /**
+     * The bytecodes used per turn by robots of one team and type.
+     */
+    public static class Histogram {
+        private final int[] buckets = new int[NUM_BUCKETS];
+        private int turns;
+        private long total;
+        private int max;
+        private int turnsAtLimit;
+
+        /**
+         * @param bytecodes the bytecodes used in a turn
+         * @param limit     the bytecode limit of the turn
+         */
+        public void record(int bytecodes, int limit) {
+            bytecodes = Math.max(0, bytecodes);
+            buckets[bucket(bytecodes)]++;
+            turns++;
+            total += bytecodes;
+            max = Math.max(max, bytecodes);
+            if (bytecodes >= limit) {
+                turnsAtLimit++;
+            }
+        }
+
+        public int getTurns() {
+            return turns;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public int getMax() {
+            return max;
+        }
+
+        public int getTurnsAtLimit() {
+            return turnsAtLimit;
+        }
+
+        public double getMean() {
+            return turns == 0 ? 0 : total / (double) turns;
+        }
+
+        /**
+         * @return the highest value in the bucket of the nearest-rank
+         *         percentile, but no more than the largest value recorded
+         */
+        public int getPercentile(double percent) {
+            if (turns == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percent / 100 * turns));
+            long seen = 0;
+            for (int b = 0; b < NUM_BUCKETS; b++) {
+                seen += buckets[b];
+                if (seen >= rank) {
+                    return (int) Math.min(max, bucketTop(b));
+                }
+            }
+            return max;
+        }
+
+        private void clear() {
+            Arrays.fill(buckets, 0);
+            turns = 0;
+            total = 0;
+            max = 0;
+            turnsAtLimit = 0;
+        }
+
+        private void appendJson(StringBuilder json) {
+            json.append("{\"turns\":").append(turns);
+            json.append(",\"meanBytecodes\":").append(String.format(Locale.ROOT, "%.1f", getMean()));
+            json.append(",\"p50Bytecodes\":").append(getPercentile(50));
+            json.append(",\"p90Bytecodes\":").append(getPercentile(90));
+            json.append(",\"p99Bytecodes\":").append(getPercentile(99));
+            json.append(",\"maxBytecodes\":").append(max);
+            json.append(",\"turnsAtLimit\":").append(turnsAtLimit);
+            json.append(",\"histogram\":[");
+            boolean first = true;
+            for (int b = 0; b < NUM_BUCKETS; b++) {
+                if (buckets[b] == 0) {
+                    continue;
+                }
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append('[').append(bucketTop(b)).append(',').append(buckets[b]).append(']');
+            }
+            json.append("]}");
+        }
+    }
+
+    private final Histogram[][] match = newHistograms();
+    private final Histogram[][] window = newHistograms();
+
+    private int windowStart = 1;
+
+    /**
+     * The rows of the windows closed so far, see WINDOWS_CSV_HEADER.
+     */
+    private final List<String> windowRows = new ArrayList<>();
+
+    private static Histogram[][] newHistograms() {
+        Histogram[][] histograms = new Histogram[TEAMS.length][TYPES.length];
+        for (int t = 0; t < TEAMS.length; t++) {
+            for (int u = 0; u < TYPES.length; u++) {
+                histograms[t][u] = new Histogram();
+            }
+        }
+        return histograms;
+    }
+
+    /**
+     * @return the index of the bucket a value goes in
+     */
+    static int bucket(int value) {
+        if (value < SUB_BUCKETS) {
+            return value;
+        }
+        int exponent = 31 - Integer.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + ((value >> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return the highest value that goes in a bucket
+     */
+    static long bucketTop(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long bottom = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return bottom + (1L << shift) - 1;
+    }
+
+    /**
+     * Record the bytecodes a robot used in the turn it just took.
+     */
+    public void recordTurn(InternalRobot robot) {
+        int team = robot.getTeam().ordinal();
+        int type = robot.getType().ordinal();
+        int bytecodes = robot.getBytecodesUsed();
+        int limit = robot.getBytecodeLimit();
+        match[team][type].record(bytecodes, limit);
+        window[team][type].record(bytecodes, limit);
+    }
+
+    /**
+     * @return the histogram of the whole match so far for a team and type
+     */
+    public Histogram getHistogram(Team team, UnitType type) {
+        return match[team.ordinal()][type.ordinal()];
+    }
+
+    /**
+     * Close the current window of rounds, keeping a row for each team and
+     * type that took any turns in it, and start the next one.
+     *
+     * @param lastRound the last round in the window
+     */
+    public void endWindow(int lastRound) {
+        for (int t = 0; t < TEAMS.length; t++) {
+            for (int u = 0; u < TYPES.length; u++) {
+                Histogram h = window[t][u];
+                if (h.turns > 0) {
+                    windowRows.add(String.format(Locale.ROOT, "%d,%d,%s,%s,%d,%.1f,%d,%d,%d,%d,%d",
+                            windowStart, lastRound, TEAMS[t], TYPES[u], h.turns, h.getMean(),
+                            h.getPercentile(50), h.getPercentile(90), h.getPercentile(99), h.max, h.turnsAtLimit));
+                }
+                h.clear();
+            }
+        }
+        windowStart = lastRound + 1;
+    }
+
+    /**
+     * Write the rows of the closed windows as CSV.
+     */
+    public void writeWindowsCsv(PrintStream out) {
+        out.println(WINDOWS_CSV_HEADER);
+        for (String row : windowRows) {
+            out.println(row);
+        }
+    }
+
+    /**
+     * @return a line for each team and type that took any turns, summing up
+     *         their bytecode use over the match
+     */
+    public List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        for (int t = 0; t < TEAMS.length; t++) {
+            for (int u = 0; u < TYPES.length; u++) {
+                Histogram h = match[t][u];
+                if (h.turns > 0) {
+                    lines.add(String.format(Locale.ROOT,
+                            "%s %s: %d turns, mean %.0f, p50 %d, p90 %d, p99 %d, max %d bytecodes, %d turns at the limit",
+                            TEAMS[t], TYPES[u], h.turns, h.getMean(), h.getPercentile(50), h.getPercentile(90),
+                            h.getPercentile(99), h.max, h.turnsAtLimit));
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @return the match histograms as a JSON object of teams, each an object
+     *         of the unit types that took any turns
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (int t = 0; t < TEAMS.length; t++) {
+            if (t > 0) {
+                json.append(',');
+            }
+            json.append('"').append(TEAMS[t]).append("\":{");
+            boolean first = true;
+            for (int u = 0; u < TYPES.length; u++) {
+                if (match[t][u].turns == 0) {
+                    continue;
+                }
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append('"').append(TYPES[u]).append("\":");
+                match[t][u].appendJson(json);
+            }
+            json.append('}');
+        }
+        json.append('}');
+        return json.toString();
+    }
+}
@@ -4,13 +4,19 @@ import battlecode.common.Team;
 
 /**
  * Class to hold any game stats desired for a specific match
- * such as winner and domination factor
+ * such as winner and domination factor, and how many turns, bytecodes,
+ * spawns and deaths each team had
  */
 public class GameStats {
 
     private Team winner;
     private DominationFactor dominationFactor;
 
+    private final int[] turns = new int[2];
+    private final long[] bytecodes = new long[2];
+    private final int[] spawns = new int[2];
+    private final int[] deaths = new int[2];
+
     public GameStats() {
         this.winner = null;
         this.dominationFactor = null;
@@ -32,4 +38,36 @@ public class GameStats {
         return dominationFactor;
     }
 
+    public void addTurn(Team team, int bytecodesUsed) {
+        turns[team.ordinal()]++;
+        bytecodes[team.ordinal()] += bytecodesUsed;
+    }
+
+    /**
+     * Count a robot added to the map, including the towers a map starts with.
+     */
+    public void addSpawn(Team team) {
+        spawns[team.ordinal()]++;
+    }
+
+    public void addDeath(Team team) {
+        deaths[team.ordinal()]++;
+    }
+
+    public int getTurns(Team team) {
+        return turns[team.ordinal()];
+    }
+
+    public long getBytecodes(Team team) {
+        return bytecodes[team.ordinal()];
+    }
+
+    public int getSpawns(Team team) {
+        return spawns[team.ordinal()];
+    }
+
+    public int getDeaths(Team team) {
+        return deaths[team.ordinal()];
+    }
+
 }
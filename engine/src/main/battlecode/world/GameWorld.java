@@ -2,6 +2,7 @@ package battlecode.world;
 
 import battlecode.common.*;
 import battlecode.instrumenter.profiler.ProfilerCollection;
+import battlecode.jfr.RobotTurnEvent;
 import battlecode.schema.Action;
 import battlecode.server.ErrorReporter;
 import battlecode.server.GameMaker;
@@ -33,6 +34,11 @@ public class GameWorld {
     private int[] markersA;
     private int[] markersB;
     private int[] colorLocations; // No color = 0, Team A color 1 = 1, Team A color 2 = 2, Team B color 1 = 3, Team B color 2 = 4
+    // Bumped whenever the paint on a tile changes, indexed by location
+    private int[] tileVersions;
+    // The MapInfo each team's robots share for each tile, and the tile version it was made at, indexed by team and location
+    private MapInfo[][] mapInfoCache;
+    private int[][] mapInfoCacheVersions;
     private InternalRobot[][] robots;
     private final LiveMap gameMap;
     private final TeamInfo teamInfo;
@@ -62,8 +68,38 @@ public class GameWorld {
     private final GameMaker.MatchMaker matchMaker;
     private int areaWithoutWalls;
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Times the phases of each round; null unless phase timings are enabled.
+     */
+    private final PhaseTimer phaseTimer;
+
+    private final BytecodeHistograms bytecodeHistograms = new BytecodeHistograms();
+
+    /**
+     * Watches the time each robot turn takes; null unless enabled.
+     */
+    private final TurnWatchdog turnWatchdog;
+
     public GameWorld(LiveMap gm, RobotControlProvider cp, GameMaker.MatchMaker matchMaker) {
+        this(gm, cp, matchMaker, null);
+    }
+
+    public GameWorld(LiveMap gm, RobotControlProvider cp, GameMaker.MatchMaker matchMaker, PhaseTimer phaseTimer) {
+        this(gm, cp, matchMaker, phaseTimer, null);
+    }
+
+    /**
+     * @param phaseTimer   the timer to record the phases of each round with,
+     *                     or null to not time them
+     * @param turnWatchdog the watchdog to give the time of each robot turn
+     *                     to, or null; needs a phase timer
+     */
+    @SuppressWarnings("unchecked")
+    public GameWorld(LiveMap gm, RobotControlProvider cp, GameMaker.MatchMaker matchMaker, PhaseTimer phaseTimer,
+                     TurnWatchdog turnWatchdog) {
+        if (turnWatchdog != null && phaseTimer == null) {
+            throw new IllegalArgumentException("The turn watchdog needs a phase timer");
+        }
         int width = gm.getWidth();
         int height = gm.getHeight();
         int numSquares = width * height;
@@ -78,6 +114,9 @@ public class GameWorld {
         this.gameMap = gm;
         this.objectInfo = new ObjectInfo(gm);
         this.colorLocations = new int[numSquares];
+        this.tileVersions = new int[numSquares];
+        this.mapInfoCache = new MapInfo[2][numSquares];
+        this.mapInfoCacheVersions = new int[2][numSquares];
 
         for (boolean wall : walls){
             if (wall) {
@@ -91,6 +130,8 @@ public class GameWorld {
         this.controlProvider = cp;
         this.rand = new Random(this.gameMap.getSeed());
         this.matchMaker = matchMaker;
+        this.phaseTimer = phaseTimer;
+        this.turnWatchdog = turnWatchdog;
 
         this.controlProvider.matchStarted(this);
 
@@ -152,18 +193,31 @@ public class GameWorld {
             }
 
             // Write match footer if game is done
+            long footerStart = System.nanoTime();
             matchMaker.makeMatchFooter(gameStats.getWinner(), gameStats.getDominationFactor(), currentRound, profilers);
+            if (phaseTimer != null)
+                phaseTimer.recordSince(PhaseTimer.Phase.REPLAY_FINALIZATION, footerStart);
             return GameState.DONE;
         }
 
         try {
+            if (phaseTimer != null)
+                phaseTimer.startRound(objectInfo.getRobotCount(Team.A) + objectInfo.getRobotCount(Team.B));
+            long phaseStart = System.nanoTime();
             this.processBeginningOfRound();
             this.controlProvider.roundStarted();
+            if (phaseTimer != null)
+                phaseTimer.addSince(PhaseTimer.Phase.BEGIN_ROUND, phaseStart);
             
             updateDynamicBodies();
 
+            phaseStart = System.nanoTime();
             this.controlProvider.roundEnded();
             this.processEndOfRound();
+            if (phaseTimer != null) {
+                phaseTimer.addSince(PhaseTimer.Phase.END_ROUND, phaseStart);
+                phaseTimer.endRound();
+            }
 
             if (!this.isRunning()) {
                 this.controlProvider.matchEnded();
@@ -336,10 +390,24 @@ public class GameWorld {
     }
 
     private boolean updateRobot(InternalRobot robot) {
-        robot.processBeginningOfTurn();
-        this.controlProvider.runRobot(robot);
-        robot.setBytecodesUsed(this.controlProvider.getBytecodesUsed(robot));
-        robot.processEndOfTurn();
+        RobotTurnEvent event = new RobotTurnEvent();
+        event.begin();
+        if (phaseTimer != null) {
+            runTurnTimed(robot);
+        } else {
+            runTurn(robot);
+        }
+        gameStats.addTurn(robot.getTeam(), robot.getBytecodesUsed());
+        bytecodeHistograms.recordTurn(robot);
+        event.end();
+        if (event.shouldCommit()) {
+            event.robotID = robot.getID();
+            event.team = robot.getTeam().name();
+            event.unitType = robot.getType().name();
+            event.round = currentRound;
+            event.bytecodesUsed = robot.getBytecodesUsed();
+            event.commit();
+        }
 
         // If the robot terminates but the death signal has not yet
         // been visited:
@@ -353,6 +421,28 @@ public class GameWorld {
         return true;
     }
 
+    private void runTurn(InternalRobot robot) {
+        robot.processBeginningOfTurn();
+        this.controlProvider.runRobot(robot);
+        robot.setBytecodesUsed(this.controlProvider.getBytecodesUsed(robot));
+        robot.processEndOfTurn();
+    }
+
+    private void runTurnTimed(InternalRobot robot) {
+        phaseTimer.startTurn();
+        robot.processBeginningOfTurn();
+        phaseTimer.startRobot();
+        this.controlProvider.runRobot(robot);
+        phaseTimer.endRobot();
+        robot.setBytecodesUsed(this.controlProvider.getBytecodesUsed(robot));
+        robot.processEndOfTurn();
+        phaseTimer.endTurn();
+        if (turnWatchdog != null) {
+            turnWatchdog.recordTurn(robot, currentRound,
+                    phaseTimer.getTurnRobotCodeNanos(), phaseTimer.getTurnEngineApiNanos());
+        }
+    }
+
     // *********************************
     // ****** BASIC MAP METHODS ********
     // *********************************
@@ -377,6 +467,17 @@ public class GameWorld {
         return this.objectInfo;
     }
 
+    public BytecodeHistograms getBytecodeHistograms() {
+        return bytecodeHistograms;
+    }
+
+    /**
+     * @return the timer for the phases of each round, or null if phases aren't timed
+     */
+    public PhaseTimer getPhaseTimer() {
+        return phaseTimer;
+    }
+
     public GameMaker.MatchMaker getMatchMaker() {
         return this.matchMaker;
     }
@@ -389,6 +490,13 @@ public class GameWorld {
         return this.colorLocations[locationToIndex(loc)];
     }
 
+    /**
+     * @return the paint on every tile, indexed by location; do not modify
+     */
+    public int[] getPaintArray() {
+        return this.colorLocations;
+    }
+
     public PaintType paintTypeFromInt(Team team, int paint) {
         Team paintTeam = teamFromPaint(paint);
 
@@ -417,6 +525,13 @@ public class GameWorld {
         return this.walls[locationToIndex(loc)];
     }
 
+    /**
+     * @return whether each tile is a wall, indexed by location; do not modify
+     */
+    public boolean[] getWallArray() {
+        return this.walls;
+    }
+
     public void setPaint(MapLocation loc, int paint) {
         if (!isPaintable(loc)) return;
         if (teamFromPaint(this.colorLocations[locationToIndex(loc)]) != Team.NEUTRAL){
@@ -426,6 +541,7 @@ public class GameWorld {
         this.getTeamInfo().addPaintedSquares(1, teamFromPaint(paint));
         }
         this.colorLocations[locationToIndex(loc)] = paint;
+        this.tileVersions[locationToIndex(loc)]++;
     }
 
     public int[] getmarkersArray(Team team) {
@@ -452,6 +568,32 @@ public class GameWorld {
             this.matchMaker.addMarkAction(loc, !isPrimaryPaint(marker));
         }
         this.getmarkersArray(team)[locationToIndex(loc)] = marker;
+        // only the marking team sees marks, so the other team's MapInfo stays valid
+        this.mapInfoCache[team.ordinal()][locationToIndex(loc)] = null;
+    }
+
+    /**
+     * Returns what a team senses at a location. The MapInfo is shared by all
+     * of the team's robots until the paint or the team's mark on the tile
+     * changes, which is safe because MapInfo can't be modified.
+     */
+    public MapInfo getMapInfo(Team team, MapLocation loc) {
+        int idx = locationToIndex(loc);
+        int t = team.ordinal();
+        MapInfo info = this.mapInfoCache[t][idx];
+        if (info != null && this.mapInfoCacheVersions[t][idx] == this.tileVersions[idx]) {
+            return info;
+        }
+        int mark = getMarker(team, loc);
+        PaintType markType = PaintType.EMPTY;
+        if (mark == 1)
+            markType = PaintType.ALLY_PRIMARY;
+        else if (mark == 2)
+            markType = PaintType.ALLY_SECONDARY;
+        info = new MapInfo(loc, isPassable(loc), getWall(loc), getPaintType(team, loc), markType, hasRuin(loc));
+        this.mapInfoCache[t][idx] = info;
+        this.mapInfoCacheVersions[t][idx] = this.tileVersions[idx];
+        return info;
     }
 
     public void markPattern(int pattern, Team team, MapLocation center, int rotationAngle, boolean reflect, boolean isTowerPattern) {
@@ -612,6 +754,13 @@ public class GameWorld {
         return allRuinsByLoc[locationToIndex(loc)];
     }
 
+    /**
+     * @return whether each tile has a ruin, indexed by location; do not modify
+     */
+    public boolean[] getRuinsByLocArray() {
+        return allRuinsByLoc;
+    }
+
     public Team teamFromPaint(int paint) {
         if (paint == 1 || paint == 2) {
             return Team.A;
@@ -685,6 +834,13 @@ public class GameWorld {
         return this.robots[loc.x - this.gameMap.getOrigin().x][loc.y - this.gameMap.getOrigin().y];
     }
 
+    /**
+     * Same as getRobot(MapLocation), without needing a MapLocation.
+     */
+    public InternalRobot getRobot(int x, int y) {
+        return this.robots[x - this.gameMap.getOrigin().x][y - this.gameMap.getOrigin().y];
+    }
+
     public void moveRobot(MapLocation start, MapLocation end) {
         addRobot(end, getRobot(start));
         removeRobot(start);
@@ -953,14 +1109,26 @@ public class GameWorld {
         }
     }
 
+    /**
+     * @return the percentage of paintable tiles covered by the team's paint, multiplied by 10
+     */
+    public int getTeamCoverage(Team team) {
+        return (int) Math.round(this.teamInfo.getNumberOfPaintedSquares(team) * 1000.0 / this.areaWithoutWalls);
+    }
+
     public void processEndOfRound() {
-        int teamACoverage = (int) Math.round(this.teamInfo.getNumberOfPaintedSquares(Team.A) * 1000.0 / this.areaWithoutWalls);
+        int teamACoverage = getTeamCoverage(Team.A);
         this.matchMaker.addTeamInfo(Team.A, this.teamInfo.getMoney(Team.A), teamACoverage, getNumResourcePatterns(Team.A));
-        int teamBCoverage = (int) Math.round(this.teamInfo.getNumberOfPaintedSquares(Team.B) * 1000.0 / this.areaWithoutWalls);
+        int teamBCoverage = getTeamCoverage(Team.B);
         this.matchMaker.addTeamInfo(Team.B, this.teamInfo.getMoney(Team.B), teamBCoverage, getNumResourcePatterns(Team.B));
         this.teamInfo.processEndOfRound();
 
+        long encodingStart = System.nanoTime();
         this.getMatchMaker().endRound();
+        if (this.matchMaker.shouldMakeKeyframe(this.currentRound))
+            this.matchMaker.makeKeyframe(this);
+        if (phaseTimer != null)
+            phaseTimer.addSince(PhaseTimer.Phase.ROUND_ENCODING, encodingStart);
 
         checkEndOfMatch();
 
@@ -999,6 +1167,7 @@ public class GameWorld {
         if (type == UnitType.LEVEL_ONE_DEFENSE_TOWER)
             this.currentDamageIncreases[team.ordinal()] += GameConstants.EXTRA_DAMAGE_FROM_DEFENSE_TOWER;
         this.currentNumberUnits[team.ordinal()] += 1;
+        gameStats.addSpawn(team);
         return ID;
     }
 
@@ -1041,6 +1210,7 @@ public class GameWorld {
 
         controlProvider.robotKilled(robot);
         objectInfo.destroyRobot(id);
+        gameStats.addDeath(robot.getTeam());
         if (fromDamage || fromException)
             matchMaker.addDieAction(id, fromException);
         else
@@ -0,0 +1,329 @@
+package battlecode.world;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Times the phases of each round of a match, to tell whether a match is
+ * slow because of the players or because of the engine. Enabled with
+ * bc.engine.phase-timings.
+ *
+ * The time spent in each phase is summed over a round and recorded once per
+ * round, except for replay finalization, which happens once per match.
+ * Robot turns are split into the player's own code, calls into the engine
+ * API (see TimedRobotController) and the engine's processing around the turn.
+ *
+ * The number of live robots at the start of each round is recorded too, so
+ * that round times can be compared against how crowded the map is.
+ *
+ * Not thread safe, but the robot threads and the main thread never run at
+ * the same time.
+ */
+public class PhaseTimer {
+
+    public enum Phase {
+        /** The whole round. */
+        ROUND("round"),
+        /** GameWorld.processBeginningOfRound. */
+        BEGIN_ROUND("beginRound"),
+        /** Player code during turns, not counting engine API calls. */
+        ROBOT_CODE("robotCode"),
+        /** Engine API calls made by players. */
+        ENGINE_API("engineApi"),
+        /** The engine's processing at the beginning and end of each turn. */
+        TURN_PROCESSING("turnProcessing"),
+        /** GameWorld.processEndOfRound, not counting round encoding. */
+        END_ROUND("endRound"),
+        /** MatchMaker.endRound and keyframes. */
+        ROUND_ENCODING("roundEncoding"),
+        /** Writing the match footer. */
+        REPLAY_FINALIZATION("replayFinalization");
+
+        public final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /**
+     * The number of power of two histogram buckets, enough for samples of
+     * up to 2^40 ns (about 18 minutes).
+     */
+    private static final int NUM_BUCKETS = 41;
+
+    /**
+     * The recorded samples of each phase, in nanoseconds.
+     */
+    private final TLongArrayList[] samples;
+
+    /**
+     * The time spent in each phase so far this round.
+     */
+    private final long[] roundNanos;
+
+    /**
+     * The number of live robots at the start of each round.
+     */
+    private final TIntArrayList robotCounts = new TIntArrayList();
+
+    private long roundStart;
+    private long turnStart;
+    private long robotStart;
+    private long robotEnd;
+
+    /**
+     * The total time spent in engine API calls, and the value it had when
+     * the current robot started running.
+     */
+    private long apiNanos;
+    private long apiNanosAtRobotStart;
+
+    private int turns;
+
+    /**
+     * The time the last robot to run spent in its own code and in engine API
+     * calls during its turn.
+     */
+    private long turnRobotCodeNanos;
+    private long turnEngineApiNanos;
+
+    public PhaseTimer() {
+        this.samples = new TLongArrayList[PHASES.length];
+        for (int i = 0; i < PHASES.length; i++) {
+            samples[i] = new TLongArrayList();
+        }
+        this.roundNanos = new long[PHASES.length];
+    }
+
+    /**
+     * Add time to a phase of the current round.
+     *
+     * @param phase the phase
+     * @param start the System.nanoTime() at which the phase started
+     */
+    public void addSince(Phase phase, long start) {
+        roundNanos[phase.ordinal()] += System.nanoTime() - start;
+    }
+
+    /**
+     * Record a phase that doesn't happen every round.
+     *
+     * @param phase the phase
+     * @param start the System.nanoTime() at which the phase started
+     */
+    public void recordSince(Phase phase, long start) {
+        samples[phase.ordinal()].add(System.nanoTime() - start);
+    }
+
+    /**
+     * Called by TimedRobotController after every engine API call.
+     *
+     * @param start the System.nanoTime() at which the call started
+     */
+    public void addApiTime(long start) {
+        apiNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * @param robots the number of live robots
+     */
+    public void startRound(int robots) {
+        roundStart = System.nanoTime();
+        robotCounts.add(robots);
+    }
+
+    public void startTurn() {
+        turnStart = System.nanoTime();
+    }
+
+    public void startRobot() {
+        robotStart = System.nanoTime();
+        roundNanos[Phase.TURN_PROCESSING.ordinal()] += robotStart - turnStart;
+        apiNanosAtRobotStart = apiNanos;
+    }
+
+    public void endRobot() {
+        robotEnd = System.nanoTime();
+        turnEngineApiNanos = apiNanos - apiNanosAtRobotStart;
+        turnRobotCodeNanos = robotEnd - robotStart - turnEngineApiNanos;
+        roundNanos[Phase.ENGINE_API.ordinal()] += turnEngineApiNanos;
+        roundNanos[Phase.ROBOT_CODE.ordinal()] += turnRobotCodeNanos;
+    }
+
+    public void endTurn() {
+        roundNanos[Phase.TURN_PROCESSING.ordinal()] += System.nanoTime() - robotEnd;
+        turns++;
+    }
+
+    /**
+     * Record the time spent in each phase this round.
+     */
+    public void endRound() {
+        roundNanos[Phase.ROUND.ordinal()] = System.nanoTime() - roundStart;
+        // processEndOfRound is timed as a whole, encoding included
+        roundNanos[Phase.END_ROUND.ordinal()] -= roundNanos[Phase.ROUND_ENCODING.ordinal()];
+        for (Phase phase : PHASES) {
+            if (phase != Phase.REPLAY_FINALIZATION) {
+                samples[phase.ordinal()].add(roundNanos[phase.ordinal()]);
+            }
+            roundNanos[phase.ordinal()] = 0;
+        }
+    }
+
+    /**
+     * @return the number of rounds recorded
+     */
+    public int getRounds() {
+        return samples[Phase.ROUND.ordinal()].size();
+    }
+
+    /**
+     * @return the number of robot turns recorded
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * @return the time the last robot to run spent in its own code during
+     *         its turn, in nanoseconds
+     */
+    public long getTurnRobotCodeNanos() {
+        return turnRobotCodeNanos;
+    }
+
+    /**
+     * @return the time the last robot to run spent in engine API calls
+     *         during its turn, in nanoseconds
+     */
+    public long getTurnEngineApiNanos() {
+        return turnEngineApiNanos;
+    }
+
+    /**
+     * @return the total time recorded for a phase, in nanoseconds
+     */
+    public long getTotalNanos(Phase phase) {
+        return samples[phase.ordinal()].sum();
+    }
+
+    /**
+     * @param round the index of a recorded round, starting at 0
+     * @return the number of live robots at the start of the round
+     */
+    public int getRobotCount(int round) {
+        return robotCounts.get(round);
+    }
+
+    /**
+     * @param round the index of a recorded round, starting at 0
+     * @return the time spent in a phase in the round, in nanoseconds
+     */
+    public long getRoundNanos(int round, Phase phase) {
+        return samples[phase.ordinal()].get(round);
+    }
+
+    /**
+     * Write the time spent in each phase of every round as CSV, with the
+     * number of live robots at the start of the round.
+     *
+     * @param out the stream to write to
+     */
+    public void writeRoundsCsv(PrintStream out) {
+        out.print("round,robots");
+        for (Phase phase : PHASES) {
+            if (phase != Phase.REPLAY_FINALIZATION) {
+                out.print(',');
+                out.print(phase.key);
+                out.print("Nanos");
+            }
+        }
+        out.println();
+        for (int round = 0; round < getRounds(); round++) {
+            out.print(round + 1);
+            out.print(',');
+            out.print(robotCounts.get(round));
+            for (Phase phase : PHASES) {
+                if (phase != Phase.REPLAY_FINALIZATION) {
+                    out.print(',');
+                    out.print(samples[phase.ordinal()].get(round));
+                }
+            }
+            out.println();
+        }
+    }
+
+    /**
+     * Summarize the recorded phases as JSON. For each phase this gives the
+     * number of samples, their total, mean, 50th/90th/99th percentiles and
+     * maximum in nanoseconds, the share of the total round time, and a
+     * histogram of [upper bound, count] pairs over power of two buckets.
+     *
+     * @return the summary as a JSON object
+     */
+    public String toJson() {
+        long roundTotal = getTotalNanos(Phase.ROUND);
+        StringBuilder json = new StringBuilder();
+        json.append("{\"rounds\":").append(getRounds());
+        json.append(",\"turns\":").append(turns);
+        json.append(",\"phases\":{");
+        for (int p = 0; p < PHASES.length; p++) {
+            TLongArrayList values = new TLongArrayList(samples[p]);
+            values.sort();
+            long total = values.sum();
+            int n = values.size();
+
+            if (p > 0) {
+                json.append(',');
+            }
+            json.append('"').append(PHASES[p].key).append("\":{");
+            json.append("\"count\":").append(n);
+            json.append(",\"totalNanos\":").append(total);
+            json.append(",\"meanNanos\":").append(n == 0 ? 0 : total / n);
+            json.append(",\"p50Nanos\":").append(percentile(values, 50));
+            json.append(",\"p90Nanos\":").append(percentile(values, 90));
+            json.append(",\"p99Nanos\":").append(percentile(values, 99));
+            json.append(",\"maxNanos\":").append(n == 0 ? 0 : values.get(n - 1));
+            json.append(",\"share\":").append(String.format(Locale.ROOT, "%.4f", roundTotal == 0 ? 0.0 : total / (double) roundTotal));
+            json.append(",\"histogram\":[");
+            int[] buckets = new int[NUM_BUCKETS];
+            for (int i = 0; i < n; i++) {
+                long value = values.get(i);
+                int bucket = value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+                buckets[Math.min(bucket, NUM_BUCKETS - 1)]++;
+            }
+            boolean first = true;
+            for (int b = 0; b < NUM_BUCKETS; b++) {
+                if (buckets[b] == 0) {
+                    continue;
+                }
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append('[').append(1L << b).append(',').append(buckets[b]).append(']');
+            }
+            json.append("]}");
+        }
+        json.append("}}");
+        return json.toString();
+    }
+
+    /**
+     * @param sorted values in ascending order
+     * @return the nearest-rank percentile of the values, or 0 if there are none
+     */
+    private static long percentile(TLongArrayList sorted, int percent) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+}
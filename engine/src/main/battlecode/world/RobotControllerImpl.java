@@ -76,15 +76,7 @@ public final class RobotControllerImpl implements RobotController {
     }
 
     private MapInfo getMapInfo(MapLocation loc) throws GameActionException {
-        GameWorld gw = this.gameWorld;
-        int mark = gw.getMarker(getTeam(), loc);
-        PaintType markType = PaintType.EMPTY;
-        if (mark == 1)
-            markType = PaintType.ALLY_PRIMARY;
-        else if (mark == 2)
-            markType = PaintType.ALLY_SECONDARY;
-        MapInfo currentLocInfo = new MapInfo(loc, gw.isPassable(loc), gw.getWall(loc), gw.getPaintType(getTeam(), loc), markType, gw.hasRuin(loc));
-        return currentLocInfo;
+        return this.gameWorld.getMapInfo(getTeam(), loc);
     }
 
     // *********************************
@@ -355,6 +347,92 @@ public final class RobotControllerImpl implements RobotController {
         return validSensedMapInfo.toArray(new MapInfo[validSensedMapInfo.size()]);
     }
 
+    private void assertArrayLength(int[] array, int minLength) throws GameActionException {
+        assertNotNull(array);
+        if (array.length < minLength)
+            throw new GameActionException(CANT_DO_THAT,
+                    "The array must be at least " + minLength + " long");
+    }
+
+    @Override
+    public int senseNearbyTileData(int[] tiles) throws GameActionException {
+        assertArrayLength(tiles, PackedInfo.MAX_TILES);
+        GameWorld gw = this.gameWorld;
+        LiveMap map = gw.getGameMap();
+        int[] paint = gw.getPaintArray();
+        int[] markers = gw.getmarkersArray(getTeam());
+        boolean[] walls = gw.getWallArray();
+        boolean[] ruins = gw.getRuinsByLocArray();
+        MapLocation center = getLocation();
+        int originX = map.getOrigin().x;
+        int originY = map.getOrigin().y;
+        int width = map.getWidth();
+        int radius = (int) Math.sqrt(GameConstants.VISION_RADIUS_SQUARED);
+        int minX = Math.max(center.x - radius, originX);
+        int maxX = Math.min(center.x + radius, originX + width - 1);
+        int minY = Math.max(center.y - radius, originY);
+        int maxY = Math.min(center.y + radius, originY + map.getHeight() - 1);
+        int count = 0;
+        for (int x = minX; x <= maxX; x++) {
+            int dx = x - center.x;
+            for (int y = minY; y <= maxY; y++) {
+                int dy = y - center.y;
+                if (dx * dx + dy * dy > GameConstants.VISION_RADIUS_SQUARED)
+                    continue;
+                int idx = x - originX + (y - originY) * width;
+                // markers are stored as the ordinals of the ally paint types
+                int tile = (x << PackedInfo.X_SHIFT) | (y << PackedInfo.Y_SHIFT)
+                        | (gw.paintTypeFromInt(getTeam(), paint[idx]).ordinal() << PackedInfo.TILE_PAINT_SHIFT)
+                        | (markers[idx] << PackedInfo.TILE_MARK_SHIFT);
+                if (walls[idx])
+                    tile |= PackedInfo.TILE_WALL;
+                if (ruins[idx])
+                    tile |= PackedInfo.TILE_RUIN;
+                if (!walls[idx] && !ruins[idx])
+                    tile |= PackedInfo.TILE_PASSABLE;
+                tiles[count++] = tile;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int senseNearbyRobotData(int[] robots) throws GameActionException {
+        assertArrayLength(robots, PackedInfo.ROBOT_ARRAY_LENGTH);
+        GameWorld gw = this.gameWorld;
+        LiveMap map = gw.getGameMap();
+        MapLocation center = getLocation();
+        int originX = map.getOrigin().x;
+        int originY = map.getOrigin().y;
+        int radius = (int) Math.sqrt(GameConstants.VISION_RADIUS_SQUARED);
+        int minX = Math.max(center.x - radius, originX);
+        int maxX = Math.min(center.x + radius, originX + map.getWidth() - 1);
+        int minY = Math.max(center.y - radius, originY);
+        int maxY = Math.min(center.y + radius, originY + map.getHeight() - 1);
+        int count = 0;
+        for (int x = minX; x <= maxX; x++) {
+            int dx = x - center.x;
+            for (int y = minY; y <= maxY; y++) {
+                int dy = y - center.y;
+                if (dx * dx + dy * dy > GameConstants.VISION_RADIUS_SQUARED)
+                    continue;
+                InternalRobot bot = gw.getRobot(x, y);
+                if (bot == null || bot == this.robot)
+                    continue;
+                int state = (x << PackedInfo.X_SHIFT) | (y << PackedInfo.Y_SHIFT)
+                        | (bot.getType().ordinal() << PackedInfo.ROBOT_TYPE_SHIFT);
+                if (bot.getTeam() == getTeam())
+                    state |= PackedInfo.ROBOT_ALLY;
+                int offset = count++ * PackedInfo.ROBOT_INTS;
+                robots[offset + PackedInfo.ROBOT_ID] = bot.getID();
+                robots[offset + PackedInfo.ROBOT_STATE] = state;
+                robots[offset + PackedInfo.ROBOT_HEALTH] = bot.getHealth();
+                robots[offset + PackedInfo.ROBOT_PAINT] = bot.getPaint();
+            }
+        }
+        return count;
+    }
+
     @Override
     public MapLocation adjacentLocation(Direction dir) {
         return getLocation().add(dir);
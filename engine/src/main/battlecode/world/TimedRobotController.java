@@ -0,0 +1,107 @@
+package battlecode.world;
+
+import battlecode.common.*;
+
+/**
+ * Wraps the RobotController given to a robot player, adding the time spent
+ * in each call to the PhaseTimer's engine API time, so that it can be told
+ * apart from time spent in the player's own code. Only used when phase
+ * timings are enabled; the cost of reading the clock is counted as engine
+ * API time.
+ *
+ * Like RobotControllerImpl, it only overrides hashCode of the Object
+ * methods, and passes it on, so that robot code sees the same equals,
+ * hashCode and toString whether or not its calls are timed.
+ */
+public class TimedRobotController implements RobotController {
+
+    private final RobotController rc;
+    private final PhaseTimer timer;
+
+    public TimedRobotController(RobotController rc, PhaseTimer timer) {
+        this.rc = rc;
+        this.timer = timer;
+    }
+
+    @Override
+    public int hashCode() {
+        return rc.hashCode();
+    }
+
+    public int getRoundNum() { long t = System.nanoTime(); try { return rc.getRoundNum(); } finally { timer.addApiTime(t); } }
+    public int getMapWidth() { long t = System.nanoTime(); try { return rc.getMapWidth(); } finally { timer.addApiTime(t); } }
+    public int getMapHeight() { long t = System.nanoTime(); try { return rc.getMapHeight(); } finally { timer.addApiTime(t); } }
+    public boolean[][] getResourcePattern() { long t = System.nanoTime(); try { return rc.getResourcePattern(); } finally { timer.addApiTime(t); } }
+    public boolean[][] getTowerPattern(UnitType type) throws GameActionException { long t = System.nanoTime(); try { return rc.getTowerPattern(type); } finally { timer.addApiTime(t); } }
+    public int getID() { long t = System.nanoTime(); try { return rc.getID(); } finally { timer.addApiTime(t); } }
+    public Team getTeam() { long t = System.nanoTime(); try { return rc.getTeam(); } finally { timer.addApiTime(t); } }
+    public MapLocation getLocation() { long t = System.nanoTime(); try { return rc.getLocation(); } finally { timer.addApiTime(t); } }
+    public int getHealth() { long t = System.nanoTime(); try { return rc.getHealth(); } finally { timer.addApiTime(t); } }
+    public int getPaint() { long t = System.nanoTime(); try { return rc.getPaint(); } finally { timer.addApiTime(t); } }
+    public int getMoney() { long t = System.nanoTime(); try { return rc.getMoney(); } finally { timer.addApiTime(t); } }
+    public int getChips() { long t = System.nanoTime(); try { return rc.getChips(); } finally { timer.addApiTime(t); } }
+    public UnitType getType() { long t = System.nanoTime(); try { return rc.getType(); } finally { timer.addApiTime(t); } }
+    public int getNumberTowers() { long t = System.nanoTime(); try { return rc.getNumberTowers(); } finally { timer.addApiTime(t); } }
+    public boolean onTheMap(MapLocation loc) { long t = System.nanoTime(); try { return rc.onTheMap(loc); } finally { timer.addApiTime(t); } }
+    public boolean canSenseLocation(MapLocation loc) { long t = System.nanoTime(); try { return rc.canSenseLocation(loc); } finally { timer.addApiTime(t); } }
+    public boolean isLocationOccupied(MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { return rc.isLocationOccupied(loc); } finally { timer.addApiTime(t); } }
+    public boolean canSenseRobotAtLocation(MapLocation loc) { long t = System.nanoTime(); try { return rc.canSenseRobotAtLocation(loc); } finally { timer.addApiTime(t); } }
+    public RobotInfo senseRobotAtLocation(MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { return rc.senseRobotAtLocation(loc); } finally { timer.addApiTime(t); } }
+    public boolean canSenseRobot(int id) { long t = System.nanoTime(); try { return rc.canSenseRobot(id); } finally { timer.addApiTime(t); } }
+    public RobotInfo senseRobot(int id) throws GameActionException { long t = System.nanoTime(); try { return rc.senseRobot(id); } finally { timer.addApiTime(t); } }
+    public RobotInfo[] senseNearbyRobots() { long t = System.nanoTime(); try { return rc.senseNearbyRobots(); } finally { timer.addApiTime(t); } }
+    public RobotInfo[] senseNearbyRobots(int radiusSquared) throws GameActionException { long t = System.nanoTime(); try { return rc.senseNearbyRobots(radiusSquared); } finally { timer.addApiTime(t); } }
+    public RobotInfo[] senseNearbyRobots(int radiusSquared, Team team) throws GameActionException { long t = System.nanoTime(); try { return rc.senseNearbyRobots(radiusSquared, team); } finally { timer.addApiTime(t); } }
+    public RobotInfo[] senseNearbyRobots(MapLocation center, int radiusSquared, Team team) throws GameActionException { long t = System.nanoTime(); try { return rc.senseNearbyRobots(center, radiusSquared, team); } finally { timer.addApiTime(t); } }
+    public boolean sensePassability(MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { return rc.sensePassability(loc); } finally { timer.addApiTime(t); } }
+    public MapInfo senseMapInfo(MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { return rc.senseMapInfo(loc); } finally { timer.addApiTime(t); } }
+    public MapInfo[] senseNearbyMapInfos() { long t = System.nanoTime(); try { return rc.senseNearbyMapInfos(); } finally { timer.addApiTime(t); } }
+    public MapInfo[] senseNearbyMapInfos(int radiusSquared) throws GameActionException { long t = System.nanoTime(); try { return rc.senseNearbyMapInfos(radiusSquared); } finally { timer.addApiTime(t); } }
+    public MapInfo[] senseNearbyMapInfos(MapLocation center) throws GameActionException { long t = System.nanoTime(); try { return rc.senseNearbyMapInfos(center); } finally { timer.addApiTime(t); } }
+    public MapInfo[] senseNearbyMapInfos(MapLocation center, int radiusSquared) throws GameActionException { long t = System.nanoTime(); try { return rc.senseNearbyMapInfos(center, radiusSquared); } finally { timer.addApiTime(t); } }
+    public int senseNearbyTileData(int[] tiles) throws GameActionException { long t = System.nanoTime(); try { return rc.senseNearbyTileData(tiles); } finally { timer.addApiTime(t); } }
+    public int senseNearbyRobotData(int[] robots) throws GameActionException { long t = System.nanoTime(); try { return rc.senseNearbyRobotData(robots); } finally { timer.addApiTime(t); } }
+    public MapLocation[] senseNearbyRuins(int radiusSquared) throws GameActionException { long t = System.nanoTime(); try { return rc.senseNearbyRuins(radiusSquared); } finally { timer.addApiTime(t); } }
+    public MapLocation adjacentLocation(Direction dir) { long t = System.nanoTime(); try { return rc.adjacentLocation(dir); } finally { timer.addApiTime(t); } }
+    public MapLocation[] getAllLocationsWithinRadiusSquared(MapLocation center, int radiusSquared) throws GameActionException { long t = System.nanoTime(); try { return rc.getAllLocationsWithinRadiusSquared(center, radiusSquared); } finally { timer.addApiTime(t); } }
+    public boolean isActionReady() { long t = System.nanoTime(); try { return rc.isActionReady(); } finally { timer.addApiTime(t); } }
+    public int getActionCooldownTurns() { long t = System.nanoTime(); try { return rc.getActionCooldownTurns(); } finally { timer.addApiTime(t); } }
+    public boolean isMovementReady() { long t = System.nanoTime(); try { return rc.isMovementReady(); } finally { timer.addApiTime(t); } }
+    public int getMovementCooldownTurns() { long t = System.nanoTime(); try { return rc.getMovementCooldownTurns(); } finally { timer.addApiTime(t); } }
+    public boolean canMove(Direction dir) { long t = System.nanoTime(); try { return rc.canMove(dir); } finally { timer.addApiTime(t); } }
+    public void move(Direction dir) throws GameActionException { long t = System.nanoTime(); try { rc.move(dir); } finally { timer.addApiTime(t); } }
+    public boolean canBuildRobot(UnitType type, MapLocation loc) { long t = System.nanoTime(); try { return rc.canBuildRobot(type, loc); } finally { timer.addApiTime(t); } }
+    public void buildRobot(UnitType type, MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { rc.buildRobot(type, loc); } finally { timer.addApiTime(t); } }
+    public boolean canMark(MapLocation loc) { long t = System.nanoTime(); try { return rc.canMark(loc); } finally { timer.addApiTime(t); } }
+    public void mark(MapLocation loc, boolean secondary) throws GameActionException { long t = System.nanoTime(); try { rc.mark(loc, secondary); } finally { timer.addApiTime(t); } }
+    public boolean canRemoveMark(MapLocation loc) { long t = System.nanoTime(); try { return rc.canRemoveMark(loc); } finally { timer.addApiTime(t); } }
+    public void removeMark(MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { rc.removeMark(loc); } finally { timer.addApiTime(t); } }
+    public boolean canMarkTowerPattern(UnitType type, MapLocation loc) { long t = System.nanoTime(); try { return rc.canMarkTowerPattern(type, loc); } finally { timer.addApiTime(t); } }
+    public void markTowerPattern(UnitType type, MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { rc.markTowerPattern(type, loc); } finally { timer.addApiTime(t); } }
+    public boolean canUpgradeTower(MapLocation loc) { long t = System.nanoTime(); try { return rc.canUpgradeTower(loc); } finally { timer.addApiTime(t); } }
+    public void upgradeTower(MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { rc.upgradeTower(loc); } finally { timer.addApiTime(t); } }
+    public boolean canMarkResourcePattern(MapLocation loc) { long t = System.nanoTime(); try { return rc.canMarkResourcePattern(loc); } finally { timer.addApiTime(t); } }
+    public void markResourcePattern(MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { rc.markResourcePattern(loc); } finally { timer.addApiTime(t); } }
+    public boolean canCompleteTowerPattern(UnitType type, MapLocation loc) { long t = System.nanoTime(); try { return rc.canCompleteTowerPattern(type, loc); } finally { timer.addApiTime(t); } }
+    public void completeTowerPattern(UnitType type, MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { rc.completeTowerPattern(type, loc); } finally { timer.addApiTime(t); } }
+    public boolean canCompleteResourcePattern(MapLocation loc) { long t = System.nanoTime(); try { return rc.canCompleteResourcePattern(loc); } finally { timer.addApiTime(t); } }
+    public void completeResourcePattern(MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { rc.completeResourcePattern(loc); } finally { timer.addApiTime(t); } }
+    public boolean canPaint(MapLocation loc) { long t = System.nanoTime(); try { return rc.canPaint(loc); } finally { timer.addApiTime(t); } }
+    public boolean canAttack(MapLocation loc) { long t = System.nanoTime(); try { return rc.canAttack(loc); } finally { timer.addApiTime(t); } }
+    public void attack(MapLocation loc, boolean useSecondaryColor) throws GameActionException { long t = System.nanoTime(); try { rc.attack(loc, useSecondaryColor); } finally { timer.addApiTime(t); } }
+    public void attack(MapLocation loc) throws GameActionException { long t = System.nanoTime(); try { rc.attack(loc); } finally { timer.addApiTime(t); } }
+    public boolean canMopSwing(Direction dir) { long t = System.nanoTime(); try { return rc.canMopSwing(dir); } finally { timer.addApiTime(t); } }
+    public void mopSwing(Direction dir) throws GameActionException { long t = System.nanoTime(); try { rc.mopSwing(dir); } finally { timer.addApiTime(t); } }
+    public boolean canSendMessage(MapLocation loc) { long t = System.nanoTime(); try { return rc.canSendMessage(loc); } finally { timer.addApiTime(t); } }
+    public boolean canSendMessage(MapLocation loc, int messageContent) { long t = System.nanoTime(); try { return rc.canSendMessage(loc, messageContent); } finally { timer.addApiTime(t); } }
+    public void sendMessage(MapLocation loc, int messageContent) throws GameActionException { long t = System.nanoTime(); try { rc.sendMessage(loc, messageContent); } finally { timer.addApiTime(t); } }
+    public Message[] readMessages(int roundNum) { long t = System.nanoTime(); try { return rc.readMessages(roundNum); } finally { timer.addApiTime(t); } }
+    public boolean canTransferPaint(MapLocation loc, int amount) { long t = System.nanoTime(); try { return rc.canTransferPaint(loc, amount); } finally { timer.addApiTime(t); } }
+    public void transferPaint(MapLocation loc, int amount) throws GameActionException { long t = System.nanoTime(); try { rc.transferPaint(loc, amount); } finally { timer.addApiTime(t); } }
+    public void disintegrate() { long t = System.nanoTime(); try { rc.disintegrate(); } finally { timer.addApiTime(t); } }
+    public void resign() { long t = System.nanoTime(); try { rc.resign(); } finally { timer.addApiTime(t); } }
+    public void setIndicatorString(String string) { long t = System.nanoTime(); try { rc.setIndicatorString(string); } finally { timer.addApiTime(t); } }
+    public void setIndicatorDot(MapLocation loc, int red, int green, int blue) throws GameActionException { long t = System.nanoTime(); try { rc.setIndicatorDot(loc, red, green, blue); } finally { timer.addApiTime(t); } }
+    public void setIndicatorLine(MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) throws GameActionException { long t = System.nanoTime(); try { rc.setIndicatorLine(startLoc, endLoc, red, green, blue); } finally { timer.addApiTime(t); } }
+    public void setTimelineMarker(String label, int red, int green, int blue) { long t = System.nanoTime(); try { rc.setTimelineMarker(label, red, green, blue); } finally { timer.addApiTime(t); } }
+}
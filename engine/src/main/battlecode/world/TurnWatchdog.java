@@ -0,0 +1,152 @@
+package battlecode.world;
+
+import battlecode.common.Team;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Watches the wall time of every robot turn, split into the player's own
+ * code and the engine API calls it makes. Bytecode limits only bound the
+ * player's own code, so a robot can make the engine do a lot of work within
+ * its budget; this finds the robots that do. Enabled by giving a threshold
+ * with bc.engine.watchdog.robot-code-millis or
+ * bc.engine.watchdog.engine-api-millis.
+ *
+ * Turns over either threshold are logged, up to MAX_LOGGED_TURNS per match,
+ * and every turn is added to its team's totals, which are summed up at the
+ * end of the match. The times come from the PhaseTimer, so phases are
+ * timed whenever the watchdog is enabled.
+ */
+public class TurnWatchdog {
+
+    /**
+     * The most slow turns logged per match, so that a slow bot can't flood
+     * the log. Slow turns past this are still counted.
+     */
+    public static final int MAX_LOGGED_TURNS = 100;
+
+    /**
+     * The number of robots with the most slow turns listed in each team's
+     * summary.
+     */
+    private static final int SUMMARY_ROBOTS = 3;
+
+    /**
+     * The time one turn of the player's own code, or of engine API calls,
+     * may take before it is logged, in nanoseconds; 0 for no limit.
+     */
+    private final long robotCodeThresholdNanos;
+    private final long engineApiThresholdNanos;
+
+    private final Consumer<String> log;
+
+    private final TeamTotals[] totals = {new TeamTotals(), new TeamTotals()};
+
+    private int loggedTurns;
+
+    /**
+     * The time a team's robots took over a match.
+     */
+    public static class TeamTotals {
+        public int turns;
+        public long robotCodeNanos;
+        public long engineApiNanos;
+        public long maxRobotCodeNanos;
+        public long maxEngineApiNanos;
+        public int slowTurns;
+
+        /**
+         * The number of slow turns of each robot that had any.
+         */
+        public final TIntIntHashMap slowTurnsByRobot = new TIntIntHashMap();
+    }
+
+    /**
+     * @param robotCodeThresholdNanos the time the player's own code may take
+     *                                in a turn, in nanoseconds, or 0 for no limit
+     * @param engineApiThresholdNanos the time engine API calls may take in a
+     *                                turn, in nanoseconds, or 0 for no limit
+     * @param log                     where to log slow turns
+     */
+    public TurnWatchdog(long robotCodeThresholdNanos, long engineApiThresholdNanos, Consumer<String> log) {
+        this.robotCodeThresholdNanos = robotCodeThresholdNanos;
+        this.engineApiThresholdNanos = engineApiThresholdNanos;
+        this.log = log;
+    }
+
+    /**
+     * Record a robot's turn.
+     *
+     * @param robot          the robot
+     * @param round          the current round
+     * @param robotCodeNanos the time spent in the player's own code
+     * @param engineApiNanos the time spent in engine API calls
+     */
+    public void recordTurn(InternalRobot robot, int round, long robotCodeNanos, long engineApiNanos) {
+        TeamTotals team = totals[robot.getTeam().ordinal()];
+        team.turns++;
+        team.robotCodeNanos += robotCodeNanos;
+        team.engineApiNanos += engineApiNanos;
+        team.maxRobotCodeNanos = Math.max(team.maxRobotCodeNanos, robotCodeNanos);
+        team.maxEngineApiNanos = Math.max(team.maxEngineApiNanos, engineApiNanos);
+
+        boolean slow = (robotCodeThresholdNanos > 0 && robotCodeNanos > robotCodeThresholdNanos)
+                || (engineApiThresholdNanos > 0 && engineApiNanos > engineApiThresholdNanos);
+        if (!slow) {
+            return;
+        }
+        team.slowTurns++;
+        team.slowTurnsByRobot.adjustOrPutValue(robot.getID(), 1, 1);
+        if (loggedTurns < MAX_LOGGED_TURNS) {
+            log.accept(String.format(Locale.ROOT,
+                    "Slow turn: %s #%d (%s) in round %d took %.2f ms in its own code and %.2f ms in engine calls",
+                    robot.getTeam(), robot.getID(), robot.getType(), round,
+                    robotCodeNanos / 1e6, engineApiNanos / 1e6));
+        } else if (loggedTurns == MAX_LOGGED_TURNS) {
+            log.accept("More slow turns won't be logged; they are counted in the totals at the end of the match");
+        }
+        loggedTurns++;
+    }
+
+    /**
+     * @return the totals of a team so far
+     */
+    public TeamTotals getTotals(Team team) {
+        return totals[team.ordinal()];
+    }
+
+    /**
+     * @return a line summing up the turns of a team, with the robots that
+     *         had the most slow turns
+     */
+    public String summary(Team team) {
+        TeamTotals t = totals[team.ordinal()];
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "Team %s: %d turns, %.1f ms in robot code (at most %.2f ms in a turn), " +
+                        "%.1f ms in engine calls (at most %.2f ms in a turn), %d slow turns",
+                team, t.turns, t.robotCodeNanos / 1e6, t.maxRobotCodeNanos / 1e6,
+                t.engineApiNanos / 1e6, t.maxEngineApiNanos / 1e6, t.slowTurns));
+        int[] robots = t.slowTurnsByRobot.keys();
+        if (robots.length > 0) {
+            // most slow turns first, then lowest ID
+            Integer[] sorted = Arrays.stream(robots).boxed().toArray(Integer[]::new);
+            Arrays.sort(sorted, (a, b) -> t.slowTurnsByRobot.get(a) != t.slowTurnsByRobot.get(b)
+                    ? t.slowTurnsByRobot.get(b) - t.slowTurnsByRobot.get(a) : a - b);
+            summary.append(" (");
+            for (int i = 0; i < Math.min(SUMMARY_ROBOTS, sorted.length); i++) {
+                if (i > 0) {
+                    summary.append(", ");
+                }
+                summary.append('#').append(sorted[i]).append(": ").append(t.slowTurnsByRobot.get(sorted[i]));
+            }
+            if (sorted.length > SUMMARY_ROBOTS) {
+                summary.append(", ...");
+            }
+            summary.append(')');
+        }
+        return summary.toString();
+    }
+}
@@ -1,15 +1,20 @@
 package battlecode.world.control;
 
+import battlecode.common.RobotController;
 import battlecode.common.Team;
 import battlecode.instrumenter.InstrumentationException;
 import battlecode.instrumenter.TeamClassLoaderFactory;
 import battlecode.instrumenter.SandboxedRobotPlayer;
 import battlecode.instrumenter.profiler.Profiler;
 import battlecode.instrumenter.profiler.ProfilerCollection;
+import battlecode.instrumenter.stream.OutputLimit;
+import battlecode.server.Config;
 import battlecode.server.ErrorReporter;
 import battlecode.world.GameWorld;
 import battlecode.world.InternalRobot;
+import battlecode.world.TimedRobotController;
 
+import java.io.File;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.HashMap;
@@ -54,17 +59,35 @@ public class PlayerControlProvider implements RobotControlProvider {
      */
     private final OutputStream robotOut;
 
+    /**
+     * How much more output the team may write to robotOut.
+     */
+    private final OutputLimit outputLimit;
+
     /**
      * The team this control provider controls.
      */
     private final Team team;
 
     /**
-     * The ProfilerCollection instance holding the profilers for the team.
-     * Null if profiling is disabled.
+     * The ProfilerCollection instance holding the profilers for the team
+     * for the current match. Null if profiling is disabled.
      */
     private ProfilerCollection profilerCollection;
 
+    private final boolean profilingEnabled;
+
+    /**
+     * The number of bytecodes between profiler samples, or 0 to trace every call.
+     */
+    private final int profilerSampleInterval;
+
+    /**
+     * The path, without extension, that profiles are streamed to for each
+     * match; null to keep them in memory until the match footer is written.
+     */
+    private final String profilerStreamPrefix;
+
     /**
      * The match id of the current match. Incremented by one every time a new match starts.
      */
@@ -84,36 +107,70 @@ public class PlayerControlProvider implements RobotControlProvider {
                                  String teamURL,
                                  OutputStream robotOut,
                                  boolean profilingEnabled) {
+        this(team, teamPackage, teamURL, robotOut, profilingEnabled, 0, null);
+    }
+
+    /**
+     * Create a new PlayerControlProvider.
+     *
+     * @param team                   the team we're loading
+     * @param teamPackage            the name / package of the team we're loading
+     * @param teamURL                the url of the classes for the team;
+     * @param robotOut               the output that robots should write to
+     * @param profilingEnabled       whether profiling is enabled or not
+     * @param profilerSampleInterval the number of bytecodes between profiler
+     *                               samples, or 0 to trace every method call
+     * @param profilerStreamPrefix   the path, without extension, to stream each
+     *                               match's profiles to; null to keep them in memory
+     */
+    public PlayerControlProvider(Team team,
+                                 String teamPackage,
+                                 String teamURL,
+                                 OutputStream robotOut,
+                                 boolean profilingEnabled,
+                                 int profilerSampleInterval,
+                                 String profilerStreamPrefix) {
         this.teamPackage = teamPackage;
         this.sandboxes = new HashMap<>(); // GameWorld maintains order for us
         this.factory = new TeamClassLoaderFactory(teamURL);
         this.robotOut = robotOut;
+        this.outputLimit = new OutputLimit(Config.getGlobalConfig().getInt(
+                "bc.server.robot-player-replay-file-per-team-limit-bytes"));
         this.team = team;
-
-        if (profilingEnabled) {
-            profilerCollection = new ProfilerCollection();
-        }
+        this.profilingEnabled = profilingEnabled;
+        this.profilerSampleInterval = profilerSampleInterval;
+        this.profilerStreamPrefix = profilerStreamPrefix;
     }
 
     @Override
     public void matchStarted(GameWorld gameWorld) {
         this.gameWorld = gameWorld;
         matchId++;
+
+        if (profilingEnabled) {
+            File streamFile = null;
+            if (profilerStreamPrefix != null) {
+                streamFile = new File(profilerStreamPrefix + "-match" + matchId + "-team" + team + ".bcprof");
+            }
+            profilerCollection = new ProfilerCollection(factory, profilerSampleInterval, streamFile);
+        }
     }
 
     @Override
     public void matchEnded() {
-        if (profilerCollection != null) {
-            gameWorld.setProfilerCollection(team, profilerCollection);
-            profilerCollection = new ProfilerCollection();
-        }
-
         for (final SandboxedRobotPlayer player : this.sandboxes.values()) {
            if (player != null && !player.getTerminated()) {
                player.terminate();
            }
         }
 
+        // after terminating the players, so that their open methods are closed
+        if (profilerCollection != null) {
+            profilerCollection.finish();
+            gameWorld.setProfilerCollection(team, profilerCollection);
+            profilerCollection = null;
+        }
+
         this.sandboxes.clear();
         this.gameWorld = null;
     }
@@ -126,12 +183,18 @@ public class PlayerControlProvider implements RobotControlProvider {
                 profiler = profilerCollection.createProfiler(robot.getID());
             }
 
+            RobotController controller = robot.getController();
+            if (gameWorld.getPhaseTimer() != null) {
+                controller = new TimedRobotController(controller, gameWorld.getPhaseTimer());
+            }
+
             final SandboxedRobotPlayer player = new SandboxedRobotPlayer(
                     teamPackage,
-                    robot.getController(),
+                    controller,
                     robot.getID(),
                     factory.createLoader(profiler != null),
                     robotOut,
+                    outputLimit,
                     profiler
             );
             this.sandboxes.put(robot.getID(), player);
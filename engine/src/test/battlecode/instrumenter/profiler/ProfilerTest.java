@@ -0,0 +1,130 @@
+package battlecode.instrumenter.profiler;
+
+import battlecode.instrumenter.TeamClassLoaderFactory;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ProfilerTest {
+
+    @Test
+    public void testRecordEvents() {
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(".");
+        int run = factory.getProfilerFrameId("bot.RobotPlayer.run");
+        int move = factory.getProfilerFrameId("bot.RobotPlayer.move");
+        assertEquals(run, factory.getProfilerFrameId("bot.RobotPlayer.run"));
+
+        ProfilerCollection collection = new ProfilerCollection(factory);
+        assertEquals(Arrays.asList("bot.RobotPlayer.run", "bot.RobotPlayer.move"), collection.getFrames());
+
+        Profiler profiler = collection.createProfiler(7);
+        profiler.enterMethod(run);
+        profiler.incrementBytecodes(10);
+        profiler.enterMethod(move);
+        profiler.incrementBytecodes(5);
+        profiler.exitMethod(move);
+        profiler.enterMethod(move);
+        profiler.incrementBytecodes(3);
+        profiler.exitOpenMethods();
+
+        assertEquals(6, profiler.getEventCount());
+        ProfilerEventType[] types = {
+                ProfilerEventType.OPEN, ProfilerEventType.OPEN, ProfilerEventType.CLOSE,
+                ProfilerEventType.OPEN, ProfilerEventType.CLOSE, ProfilerEventType.CLOSE
+        };
+        int[] ats = {0, 10, 15, 15, 18, 18};
+        int[] frames = {run, move, move, move, move, run};
+        for (int i = 0; i < types.length; i++) {
+            assertEquals(types[i], profiler.getEventType(i));
+            assertEquals(ats[i], profiler.getEventAt(i));
+            assertEquals(frames[i], profiler.getEventFrameId(i));
+        }
+    }
+
+    @Test
+    public void testSampleEvents() {
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(".");
+        int run = factory.getProfilerFrameId("bot.RobotPlayer.run");
+        int move = factory.getProfilerFrameId("bot.RobotPlayer.move");
+        int attack = factory.getProfilerFrameId("bot.RobotPlayer.attack");
+
+        ProfilerCollection collection = new ProfilerCollection(factory, 10);
+        Profiler profiler = collection.createProfiler(7);
+        profiler.enterMethod(run);
+        profiler.incrementBytecodes(20);      // 2 samples in run
+        profiler.enterMethod(move);
+        profiler.incrementBytecodes(35);      // 3 samples in run > move
+        profiler.exitMethod(move);
+        profiler.enterMethod(attack);
+        profiler.incrementBytecodes(5);       // 1 sample in run > attack
+        profiler.exitMethod(attack);
+        profiler.enterMethod(move);
+        profiler.incrementBytecodes(20);      // 2 more in run > move
+        profiler.exitOpenMethods();
+        assertEquals(0, profiler.getEventCount());
+
+        collection.finish();
+
+        // run [0, 80) holds move [0, 50) then attack [50, 60)
+        ProfilerEventType[] types = {
+                ProfilerEventType.OPEN, ProfilerEventType.OPEN, ProfilerEventType.CLOSE,
+                ProfilerEventType.OPEN, ProfilerEventType.CLOSE, ProfilerEventType.CLOSE
+        };
+        int[] ats = {0, 0, 50, 50, 60, 80};
+        int[] frames = {run, move, move, attack, attack, run};
+        assertEquals(types.length, profiler.getEventCount());
+        for (int i = 0; i < types.length; i++) {
+            assertEquals(types[i], profiler.getEventType(i));
+            assertEquals(ats[i], profiler.getEventAt(i));
+            assertEquals(frames[i], profiler.getEventFrameId(i));
+        }
+    }
+
+    @Test
+    public void testStreamEvents() throws IOException {
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(".");
+        int run = factory.getProfilerFrameId("bot.RobotPlayer.run");
+        int move = factory.getProfilerFrameId("bot.RobotPlayer.move");
+
+        File file = File.createTempFile("profile", ".bcprof");
+        file.deleteOnExit();
+        ProfilerCollection collection = new ProfilerCollection(factory, 0, file);
+        Profiler first = collection.createProfiler(1);
+        Profiler second = collection.createProfiler(2);
+
+        // enough calls for several chunks, interleaved between the robots
+        first.enterMethod(run);
+        second.enterMethod(run);
+        for (int i = 0; i < 5000; i++) {
+            first.enterMethod(move);
+            first.incrementBytecodes(1);
+            first.exitMethod(move);
+        }
+        second.exitOpenMethods();
+        first.exitOpenMethods();
+        collection.finish();
+        assertEquals(0, first.getEventCount());
+
+        ProfilerStreamReader reader = new ProfilerStreamReader(file);
+        assertEquals(Arrays.asList("bot.RobotPlayer.run", "bot.RobotPlayer.move"), reader.getFrames());
+        assertEquals(Arrays.asList("#1", "#2"), reader.getProfileNames());
+        assertEquals(2, reader.getEventCount("#2"));
+        assertEquals(10002, reader.getEventCount("#1"));
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(ProfilerEventType.OPEN, reader.getEventType("#1", 1 + 2 * i));
+            assertEquals(i, reader.getEventAt("#1", 1 + 2 * i));
+            assertEquals(ProfilerEventType.CLOSE, reader.getEventType("#1", 2 + 2 * i));
+            assertEquals(move, reader.getEventFrameId("#1", 2 + 2 * i));
+        }
+        assertEquals(5000, reader.getEventAt("#1", 10001));
+
+        StringWriter json = new StringWriter();
+        reader.writeSpeedscope(json);
+        assertTrue(json.toString().startsWith("{\"$schema\":\"https://www.speedscope.app/file-format-schema.json\""));
+    }
+}
@@ -0,0 +1,76 @@
+package battlecode.instrumenter.stream;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ConsoleWriterTest {
+
+    /**
+     * A console that doesn't take any output until it is released.
+     */
+    private static class StuckConsole extends ByteArrayOutputStream {
+        final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            try {
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.write(b, off, len);
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test(timeout = 10000)
+    public void testOrder() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConsoleWriter console = new ConsoleWriter(out, 16, false);
+        console.start();
+        StringBuilder expected = new StringBuilder();
+        byte[] buf = new byte[8];
+        for (int i = 0; i < 1000; i++) {
+            String line = i + "\n";
+            byte[] b = bytes(line);
+            System.arraycopy(b, 0, buf, 0, b.length);
+            console.write(buf, 0, b.length);
+            // the buffer may be reused right away
+            java.util.Arrays.fill(buf, (byte) 'x');
+            expected.append(line);
+        }
+        console.drain();
+        assertEquals(expected.toString(), out.toString(StandardCharsets.UTF_8));
+        assertEquals(0, console.getDroppedLines());
+        assertEquals(0, console.getQueuedBytes());
+    }
+
+    @Test(timeout = 10000)
+    public void testDrop() {
+        StuckConsole out = new StuckConsole();
+        ConsoleWriter console = new ConsoleWriter(out, 10, true);
+        console.start();
+
+        byte[] first = bytes("first\n");
+        console.write(first, 0, first.length);
+        // queued output counts until it has been written, so this just fits
+        byte[] second = bytes("two\n");
+        console.write(second, 0, second.length);
+        byte[] third = bytes("3a\n3b\n");
+        console.write(third, 0, third.length);
+
+        out.released.countDown();
+        console.drain();
+        assertEquals(2, console.getDroppedLines());
+        assertEquals("first\ntwo\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,126 @@
+package battlecode.instrumenter.stream;
+
+import battlecode.common.Team;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class RoboPrintStreamTest {
+
+    private static String text(ByteArrayOutputStream out) {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testHeaders() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RoboPrintStream stream = new RoboPrintStream(out, false, new OutputLimit(-1));
+        String nl = System.lineSeparator();
+
+        stream.updateHeader(Team.A, 12, 3);
+        stream.println("hello");
+        stream.print(42);
+        stream.print('x');
+        stream.println(new char[] {'a', 'b'});
+        stream.printf("%d-%s", 7, "seven");
+        stream.println(2.5);
+        stream.println((Object) null);
+        stream.append("abcdef", 1, 3);
+        stream.println("héllo 😀");
+
+        // nothing is written until the end of the turn
+        assertEquals(0, out.size());
+        stream.flush();
+        assertEquals("[A: #12@3] hello" + nl +
+                "[A: #12@3] 42" +
+                "[A: #12@3] x" +
+                "[A: #12@3] ab" + nl +
+                "[A: #12@3] 7-seven" +
+                "[A: #12@3] 2.5" + nl +
+                "[A: #12@3] null" + nl +
+                "[A: #12@3] bc" +
+                "[A: #12@3] héllo 😀" + nl, text(out));
+
+        out.reset();
+        stream.updateHeader(Team.A, 12, 4);
+        stream.println(true);
+        stream.flush();
+        assertEquals("[A: #12@4] true" + nl, text(out));
+    }
+
+    @Test
+    public void testPrintFromPrintedValue() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RoboPrintStream stream = new RoboPrintStream(out, false, new OutputLimit(-1));
+        stream.updateHeader(Team.A, 1, 1);
+
+        // robot code run while printing may print, and even fill the buffer
+        Object value = new Object() {
+            public String toString() {
+                stream.printf("%d", 7);
+                stream.print("inner");
+                return "value";
+            }
+        };
+        CharSequence chars = new CharSequence() {
+            public int length() { return 2; }
+            public char charAt(int index) { return "cs".charAt(index); }
+            public CharSequence subSequence(int start, int end) { return "cs".subSequence(start, end); }
+            public String toString() {
+                stream.print("x".repeat(RoboPrintStream.FLUSH_THRESHOLD));
+                return "cs";
+            }
+        };
+
+        stream.printf("<%s>", value);
+        stream.append(chars);
+        stream.append(chars, 1, 2);
+        stream.flush();
+        String xs = "x".repeat(RoboPrintStream.FLUSH_THRESHOLD);
+        assertEquals("[A: #1@1] 7[A: #1@1] inner[A: #1@1] <value>" +
+                "[A: #1@1] " + xs + "[A: #1@1] cs" +
+                "[A: #1@1] " + xs + "[A: #1@1] s", text(out));
+    }
+
+    @Test
+    public void testTeamLimit() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputLimit limit = new OutputLimit(10);
+        RoboPrintStream first = new RoboPrintStream(out, false, limit);
+        RoboPrintStream second = new RoboPrintStream(out, false, limit);
+        first.updateHeader(Team.B, 1, 1);
+        second.updateHeader(Team.B, 2, 1);
+
+        // headers don't count towards the limit
+        first.print("123456");
+        first.flush();
+        second.print("abcdef");
+        second.print("more");
+        second.flush();
+        first.print("even more");
+        first.flush();
+
+        assertEquals("[B: #1@1] 123456[B: #2@1] abcd[output truncated due to team output limit]\n", text(out));
+        assertTrue(limit.isExhausted());
+    }
+
+    @Test
+    public void testEarlyFlush() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RoboPrintStream stream = new RoboPrintStream(out, false, new OutputLimit(-1));
+        stream.updateHeader(Team.A, 1, 1);
+
+        char[] line = new char[1000];
+        java.util.Arrays.fill(line, 'x');
+        int lines = 0;
+        while (out.size() == 0) {
+            stream.println(line);
+            lines++;
+        }
+        assertTrue(out.size() >= RoboPrintStream.FLUSH_THRESHOLD);
+        assertTrue(lines * 1000 < 2 * RoboPrintStream.FLUSH_THRESHOLD);
+    }
+}
@@ -3,13 +3,26 @@ package battlecode.server;
 import battlecode.common.GameConstants;
 import battlecode.common.MapLocation;
 import battlecode.common.Team;
+import battlecode.common.UnitType;
 import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
 import battlecode.schema.GameHeader;
 import battlecode.schema.GameWrapper;
+import battlecode.schema.Keyframe;
+import battlecode.schema.Round;
+import battlecode.schema.Turn;
+import battlecode.schema.TurnField;
 import battlecode.util.TeamMapping;
+import battlecode.util.TurnDecoder;
+import battlecode.world.DominationFactor;
+import battlecode.world.TestGame;
 import battlecode.world.TestMapBuilder;
 
 import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -17,6 +30,7 @@ import org.mockito.Mockito;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.zip.GZIPInputStream;
@@ -30,22 +44,130 @@ import static org.mockito.Mockito.verify;
  * @author james
  */
 public class GameMakerTest {
-    private final GameInfo info = new GameInfo(
-                    "bananas", "org.bananas", null,
-                    "yellow","org.yellow", null,
-                    new String[] {"honolulu"}, null, false
-    );
+    private final GameInfo info = TestGameInfo.create();
 
     @Test(expected=RuntimeException.class)
     public void testStateExceptions() {
-        GameMaker gm = new GameMaker(info, null, true);
+        GameMaker gm = new GameMaker(info, null, TestGameInfo.options());
 
         gm.makeGameFooter(Team.A);
     }
 
+    @Test
+    public void testKeyframes() throws IOException {
+        Config options = TestGameInfo.options();
+        options.set("bc.engine.keyframe-interval", "2");
+        GameMaker gm = new GameMaker(info, null, options);
+        gm.makeGameHeader();
+
+        TestGame game = new TestGame(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337).build(), gm.getMatchMaker());
+        game.waitRounds(5);
+
+        gm.getMatchMaker().makeMatchFooter(Team.A, DominationFactor.RESIGNATION, 5, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(gm.toBytes())));
+
+        // keyframes after rounds 2 and 4, each right after its round
+        assertEquals(2, output.keyframesLength());
+        for (int i = 0; i < output.keyframesLength(); i++) {
+            EventWrapper event = output.events(output.keyframes(i));
+            assertEquals(Event.Keyframe, event.eType());
+            assertEquals(Event.Round, output.events(output.keyframes(i) - 1).eType());
+
+            Keyframe keyframe = (Keyframe) event.e(new Keyframe());
+            assertEquals(2 * (i + 1), keyframe.roundId());
+            assertEquals(20 * 20, keyframe.paintLength());
+            assertEquals(20 * 20, keyframe.teamAMarkersLength());
+            assertEquals(2, keyframe.teamIdsLength());
+        }
+    }
+
+    @Test
+    public void testDeltaTurns() throws IOException {
+        Config options = TestGameInfo.options();
+        options.setBoolean("bc.engine.delta-turns", true);
+        GameMaker gm = new GameMaker(info, null, options);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337).build());
+
+        mm.startRound(1);
+        mm.endTurn(7, 100, 50, 0, 10, 1234, new MapLocation(3, 4));
+        mm.endRound();
+        mm.startRound(2);
+        mm.endTurn(7, 100, 40, 0, 0, 1234, new MapLocation(3, 5));
+        mm.endRound();
+        mm.makeMatchFooter(Team.A, DominationFactor.RESIGNATION, 2, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(gm.toBytes())));
+        Round first = (Round) output.events(2).e(new Round());
+        Round second = (Round) output.events(3).e(new Round());
+        Turn turn = second.turns(0);
+
+        assertEquals(TurnField.Delta | TurnField.Paint | TurnField.ActionCooldown | TurnField.Y,
+                turn.changedFields());
+
+        TurnDecoder decoder = new TurnDecoder();
+        decoder.decode(first.turns(0));
+        int[] state = decoder.decode(turn);
+        assertEquals(100, state[TurnDecoder.HEALTH]);
+        assertEquals(40, state[TurnDecoder.PAINT]);
+        assertEquals(0, state[TurnDecoder.ACTION_COOLDOWN]);
+        assertEquals(1234, state[TurnDecoder.BYTECODES_USED]);
+        assertEquals(3, state[TurnDecoder.X]);
+        assertEquals(5, state[TurnDecoder.Y]);
+    }
+
+    @Test
+    public void testFlightRecorderEvents() throws IOException {
+        File replay = File.createTempFile("replay", ".bc25");
+        File recording = File.createTempFile("recording", ".jfr");
+        replay.deleteOnExit();
+        recording.deleteOnExit();
+
+        try (Recording r = new Recording()) {
+            r.enable("battlecode.RobotTurn");
+            r.enable("battlecode.ReplayWrite");
+            r.start();
+
+            GameMaker gm = new GameMaker(info, null, TestGameInfo.options());
+            gm.makeGameHeader();
+            TestGame game = new TestGame(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337).build(), gm.getMatchMaker());
+            game.getWorld().spawnRobot(UnitType.SOLDIER, new MapLocation(2, 2), Team.A);
+            game.waitRounds(3);
+            gm.getMatchMaker().makeMatchFooter(Team.A, DominationFactor.RESIGNATION, 3, new ArrayList<>());
+            gm.makeGameFooter(Team.A);
+            gm.writeGame(replay);
+
+            r.stop();
+            r.dump(recording.toPath());
+        }
+
+        List<RecordedEvent> turns = new ArrayList<>();
+        List<RecordedEvent> writes = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recording.toPath())) {
+            if (event.getEventType().getName().equals("battlecode.RobotTurn")) {
+                turns.add(event);
+            } else if (event.getEventType().getName().equals("battlecode.ReplayWrite")) {
+                writes.add(event);
+            }
+        }
+        assertEquals(3, turns.size());
+        for (int i = 0; i < turns.size(); i++) {
+            assertEquals(i + 1, turns.get(i).getInt("round"));
+            assertEquals("A", turns.get(i).getString("team"));
+            assertEquals("SOLDIER", turns.get(i).getString("unitType"));
+        }
+        assertEquals(1, writes.size());
+        assertEquals(replay.getPath(), writes.get(0).getString("path"));
+        assertEquals(replay.length(), writes.get(0).getLong("bytes"));
+    }
+
     // @Test(expected=RuntimeException.class)
     // public void testMatchStateExceptions() {
-    //     GameMaker gm = new GameMaker(info, null, true);
+    //     GameMaker gm = new GameMaker(info, null, TestGameInfo.options());
     //     gm.makeGameHeader();
     //     gm.getMatchMaker().makeMatchFooter(Team.A, 23, new ArrayList<>());
     // }
@@ -53,7 +175,7 @@ public class GameMakerTest {
     // @Test
     // public void fullReasonableGame() throws Exception {
     //     NetServer mockServer = Mockito.mock(NetServer.class);
-    //     GameMaker gm = new GameMaker(info, mockServer, true);
+    //     GameMaker gm = new GameMaker(info, mockServer, TestGameInfo.options());
 
     //     gm.makeGameHeader();
     //     GameMaker.MatchMaker mm = gm.getMatchMaker();
@@ -0,0 +1,37 @@
+package battlecode.server;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.common.UnitType;
+import battlecode.world.TestGame;
+import battlecode.world.TestMapBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MatchMetricsTest {
+    private final GameInfo info = TestGameInfo.create();
+
+    @Test
+    public void testToJson() {
+        GameMaker gm = new GameMaker(info, null, TestGameInfo.options());
+        gm.makeGameHeader();
+        MatchMetrics metrics = new MatchMetrics(gm);
+        TestGame game = new TestGame(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337).build(), gm.getMatchMaker());
+        game.getWorld().spawnRobot(UnitType.SOLDIER, new MapLocation(1, 1), Team.A);
+        int mopper = game.getWorld().spawnRobot(UnitType.MOPPER, new MapLocation(2, 2), Team.A);
+        game.getWorld().spawnRobot(UnitType.SPLASHER, new MapLocation(18, 18), Team.B);
+        game.waitRounds(3);
+        game.getWorld().destroyRobot(mopper);
+        game.waitRounds(1);
+
+        String json = metrics.toJson(info, "honolulu", game.getWorld(), null);
+        assertTrue(json, json.startsWith("{\"map\":\"honolulu\",\"teamA\":\"org.bananas\",\"teamB\":\"org.yellow\"," +
+                "\"winner\":null,\"rounds\":4,\"turns\":11,"));
+        assertTrue(json, json.contains(",\"teams\":{\"A\":{\"turns\":7,\"bytecodes\":0,\"spawns\":2,\"deaths\":1}," +
+                "\"B\":{\"turns\":4,\"bytecodes\":0,\"spawns\":1,\"deaths\":0}}"));
+        assertFalse(json.contains("\"replayBytes\":0,"));
+        assertFalse(json.contains("phaseTimings"));
+        assertTrue(json.endsWith("}"));
+    }
+}
@@ -0,0 +1,208 @@
+package battlecode.server;
+
+import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
+import battlecode.schema.Keyframe;
+import battlecode.schema.Round;
+import com.google.flatbuffers.FlatBufferBuilder;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NetServerTest {
+
+    private static byte[] event(byte type) {
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        builder.finish(EventWrapper.createEventWrapper(builder, type, 0));
+        return builder.sizedByteArray();
+    }
+
+    private static byte[] round(int id) {
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        Round.startRound(builder);
+        Round.addRoundId(builder, id);
+        builder.finish(EventWrapper.createEventWrapper(builder, Event.Round, Round.endRound(builder)));
+        return builder.sizedByteArray();
+    }
+
+    private static byte[] keyframe(int id) {
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        Keyframe.startKeyframe(builder);
+        Keyframe.addRoundId(builder, id);
+        builder.finish(EventWrapper.createEventWrapper(builder, Event.Keyframe, Keyframe.endKeyframe(builder)));
+        return builder.sizedByteArray();
+    }
+
+    /**
+     * @return the event's type, followed by its round for Rounds and Keyframes
+     */
+    private static String describe(ByteBuffer event) {
+        EventWrapper wrapper = EventWrapper.getRootAsEventWrapper(event.order(ByteOrder.LITTLE_ENDIAN));
+        switch (wrapper.eType()) {
+            case Event.Round:
+                return "Round " + ((Round) wrapper.e(new Round())).roundId();
+            case Event.Keyframe:
+                return "Keyframe " + ((Keyframe) wrapper.e(new Keyframe())).roundId();
+            default:
+                return Event.name(wrapper.eType());
+        }
+    }
+
+    /**
+     * Connect a client that adds what it receives to received.
+     *
+     * @param batched whether the server sends batched messages
+     * @param resource the path the client connects to
+     */
+    private static WebSocket connect(NetServer server, List<String> received, boolean batched, String resource) {
+        WebSocket client = Mockito.mock(WebSocket.class);
+        Mockito.when(client.isOpen()).thenReturn(true);
+        Mockito.doAnswer(invocation -> received.add(describe(ByteBuffer.wrap(invocation.getArgument(0)))))
+                .when(client).send(Mockito.any(byte[].class));
+        Mockito.doAnswer(invocation -> {
+            ByteBuffer message = ((ByteBuffer) invocation.getArgument(0)).order(ByteOrder.LITTLE_ENDIAN);
+            if (!batched) {
+                return received.add(describe(message));
+            }
+            while (message.hasRemaining()) {
+                int length = message.getInt();
+                byte[] event = new byte[length];
+                message.get(event);
+                received.add(describe(ByteBuffer.wrap(event)));
+            }
+            return null;
+        }).when(client).send(Mockito.any(ByteBuffer.class));
+        Mockito.doAnswer(invocation -> received.add(invocation.getArgument(0)))
+                .when(client).send(Mockito.anyString());
+
+        ClientHandshake handshake = Mockito.mock(ClientHandshake.class);
+        Mockito.when(handshake.getResourceDescriptor()).thenReturn(resource);
+        server.onOpen(client, handshake);
+        return client;
+    }
+
+    /**
+     * Wait until a client has received count events.
+     */
+    private static void awaitReceived(List<String> received, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (received.size() < count) {
+            assertTrue("only received " + received, System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> newReceived() {
+        return Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Test
+    public void testLateClients() throws InterruptedException {
+        NetServer server = new NetServer(0, false, 100, 1);
+        server.start();
+        List<String> first = newReceived();
+        connect(server, first, false, "/");
+
+        server.addEvent(event(Event.GameHeader));
+        server.addEvent(event(Event.MatchHeader));
+        server.addEvent(round(1));
+        server.addEvent(round(2));
+        server.addEvent(keyframe(2));
+        server.addEvent(round(3));
+        awaitReceived(first, 6);
+
+        // caught up with the whole match, or from its latest keyframe
+        List<String> late = newReceived();
+        List<String> snapshot = newReceived();
+        connect(server, late, false, "/");
+        connect(server, snapshot, false, "/snapshot");
+        server.addEvent(round(4));
+        // a new match replaces the previous one
+        server.addEvent(event(Event.MatchHeader));
+        server.addEvent(round(1));
+        awaitReceived(first, 9);
+
+        List<String> nextMatch = newReceived();
+        connect(server, nextMatch, false, "/");
+        server.addEvent(round(2));
+        server.finish();
+
+        assertEquals(Arrays.asList("GameHeader", "MatchHeader", "Round 1", "Round 2", "Keyframe 2", "Round 3",
+                "Round 4", "MatchHeader", "Round 1", "Round 2"), first);
+        assertEquals(first, late);
+        assertEquals(Arrays.asList("GameHeader", "MatchHeader", "Keyframe 2", "Round 3",
+                "Round 4", "MatchHeader", "Round 1", "Round 2"), snapshot);
+        assertEquals(Arrays.asList("GameHeader", "MatchHeader", "Round 1", "Round 2"), nextMatch);
+    }
+
+    @Test
+    public void testBatchedLateClients() throws InterruptedException {
+        NetServer server = new NetServer(0, false, 100, 2);
+        server.start();
+        List<String> first = newReceived();
+        connect(server, first, true, "/");
+
+        server.addEvent(event(Event.GameHeader));
+        server.addEvent(event(Event.MatchHeader));
+        server.addEvent(round(1));
+        server.addEvent(round(2));
+        awaitReceived(first, 5);
+
+        // without a keyframe, a snapshot client gets the whole match
+        List<String> snapshot = newReceived();
+        WebSocket client = connect(server, snapshot, true, "/snapshot");
+        server.addEvent(round(3));
+        awaitReceived(first, 6);
+
+        // a new game replaces the previous one
+        server.addEvent(event(Event.GameHeader));
+        server.addEvent(event(Event.MatchHeader));
+        awaitReceived(first, 8);
+        List<String> nextGame = newReceived();
+        connect(server, nextGame, true, "/");
+        server.addEvent(round(1));
+        server.finish();
+
+        assertEquals(Arrays.asList(NetServer.BATCHED_MESSAGE, "GameHeader", "MatchHeader", "Round 1", "Round 2",
+                "Round 3", "GameHeader", "MatchHeader", "Round 1"), first);
+        assertEquals(first, snapshot);
+        // batched clients are caught up with batches too
+        Mockito.verify(client, Mockito.never()).send(Mockito.any(byte[].class));
+        assertEquals(Arrays.asList(NetServer.BATCHED_MESSAGE, "GameHeader", "MatchHeader", "Round 1"), nextGame);
+    }
+
+    @Test
+    public void testBlocksWhenFull() throws InterruptedException {
+        // never started, so nothing drains the queue
+        NetServer server = new NetServer(0, false, 3, 1);
+        server.addEvent(event(Event.MatchHeader));
+        server.addEvent(event(Event.Round));
+        server.addEvent(event(Event.Round));
+        assertEquals(3, server.getQueueDepth());
+        assertEquals(3, server.getMaxQueueDepth());
+
+        Thread adder = new Thread(() -> {
+            try {
+                server.addEvent(event(Event.Round));
+            } catch (RuntimeException e) {
+                // interrupted below
+            }
+        });
+        adder.start();
+        adder.join(200);
+        assertTrue("a full queue should block instead of dropping", adder.isAlive());
+        assertEquals(3, server.getQueueDepth());
+        adder.interrupt();
+        adder.join();
+    }
+}
@@ -0,0 +1,55 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.schema.Event;
+import battlecode.world.DominationFactor;
+import battlecode.world.TestGame;
+import battlecode.world.TestMapBuilder;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReplayReaderTest {
+    private final GameInfo info = TestGameInfo.create();
+
+    @Test
+    public void testReadReplay() throws IOException {
+        Config options = TestGameInfo.options();
+        options.set("bc.engine.keyframe-interval", "2");
+        GameMaker gm = new GameMaker(info, null, options);
+        gm.makeGameHeader();
+        for (int match = 0; match < 2; match++) {
+            TestGame game = new TestGame(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337).build(), gm.getMatchMaker());
+            game.waitRounds(5);
+            gm.getMatchMaker().makeMatchFooter(Team.A, DominationFactor.RESIGNATION, 5, new ArrayList<>());
+        }
+        gm.makeGameFooter(Team.A);
+
+        File replay = File.createTempFile("replay", ".bc25");
+        replay.deleteOnExit();
+        gm.writeGame(replay);
+
+        try (ReplayReader reader = new ReplayReader(replay)) {
+            assertEquals(2, reader.getMatchCount());
+            assertEquals(Event.GameHeader, reader.getEventType(0));
+            assertEquals(Event.GameFooter, reader.getEventType(reader.getEventCount() - 1));
+            assertEquals(5, reader.getMatchFooter(1).totalRounds());
+            assertEquals(4, reader.getKeyframeIndices().length);
+
+            List<Integer> roundIds = new ArrayList<>();
+            reader.forEachRound(1, (round) -> roundIds.add(round.roundId()));
+            assertEquals(List.of(1, 2, 3, 4, 5), roundIds);
+
+            // keyframes are taken after rounds 2 and 4
+            assertEquals(reader.getMatchHeaderIndex(1), reader.getKeyframeIndexBefore(1, 1));
+            int keyframe = reader.getKeyframeIndexBefore(1, 3);
+            assertEquals(Event.Keyframe, reader.getEventType(keyframe));
+            assertEquals(reader.getKeyframeIndices()[2], keyframe);
+        }
+    }
+}
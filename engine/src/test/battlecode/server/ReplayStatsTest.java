@@ -0,0 +1,76 @@
+package battlecode.server;
+
+import battlecode.common.GameActionException;
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.common.UnitType;
+import battlecode.world.DominationFactor;
+import battlecode.world.TestGame;
+import battlecode.world.TestMapBuilder;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class ReplayStatsTest {
+    private final GameInfo info = TestGameInfo.create();
+
+    @Test
+    public void testAnalyze() throws IOException, GameActionException {
+        Config options = TestGameInfo.options();
+        options.set("bc.engine.keyframe-interval", "2");
+        options.setBoolean("bc.engine.delta-turns", true);
+        GameMaker gm = new GameMaker(info, null, options);
+        gm.makeGameHeader();
+        TestGame game = new TestGame(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337).build(), gm.getMatchMaker());
+        MapLocation loc = new MapLocation(1, 1);
+        int soldier = game.getWorld().spawnRobot(UnitType.SOLDIER, loc, Team.A);
+        // spawnRobot doesn't record the spawn, buildRobot does
+        gm.getMatchMaker().addSpawnAction(soldier, loc, Team.A, UnitType.SOLDIER);
+        game.waitRounds(1);
+        game.round((id, rc) -> game.getBot(id).setBytecodesUsed(250));
+        game.round((id, rc) -> game.getBot(id).setBytecodesUsed(1001));
+        gm.getMatchMaker().makeMatchFooter(Team.B, DominationFactor.RESIGNATION, 3, new ArrayList<>());
+        gm.makeGameFooter(Team.B);
+
+        File replay = File.createTempFile("replay", ".bc25");
+        replay.deleteOnExit();
+        gm.writeGame(replay);
+
+        // the decimal columns must not depend on the default locale
+        Locale defaultLocale = Locale.getDefault();
+        List<String> rows;
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            rows = ReplayStats.analyze(replay);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+        int columns = ReplayStats.CSV_HEADER.split(",").length;
+        assertEquals(2, rows.size());
+
+        String[] teamA = rows.get(0).split(",");
+        String[] teamB = rows.get(1).split(",");
+        assertEquals(columns, teamA.length);
+        assertEquals(columns, teamB.length);
+        assertEquals("honolulu", teamA[2]);
+        assertEquals("bananas", teamA[4]);
+        assertEquals("yellow", teamB[4]);
+        assertEquals("false", teamA[5]);
+        assertEquals("true", teamB[5]);
+        assertEquals("RESIGNATION", teamB[6]);
+        assertEquals("3", teamB[7]);
+
+        // turns, meanBytecodes, p50, p90, p99, maxBytecodes
+        assertEquals(Arrays.asList("3", "417.0", "250", "1001", "1001", "1001"),
+                Arrays.asList(teamA).subList(13, 19));
+        assertEquals("0", teamB[13]);
+        assertEquals("0.0", teamB[14]);
+    }
+}
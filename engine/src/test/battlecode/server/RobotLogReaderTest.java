@@ -0,0 +1,100 @@
+package battlecode.server;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.world.DominationFactor;
+import battlecode.world.TestMapBuilder;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RobotLogReaderTest {
+    private final GameInfo info = TestGameInfo.create();
+
+    @Test
+    public void testMatchLog() throws IOException {
+        File dir = Files.createTempDirectory("logs").toFile();
+        dir.deleteOnExit();
+        File replay = new File(dir, "replay.bc25");
+        Config options = TestGameInfo.options();
+        options.setBoolean("bc.server.robot-log", true);
+        GameMaker gm = new GameMaker(TestGameInfo.create(replay), null, options);
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        OutputStream out = mm.getOut();
+        MapLocation loc = new MapLocation(0, 0);
+
+        gm.makeGameHeader();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337).build());
+        mm.startRound(1);
+        mm.startTurn(5);
+        out.write("five\n".getBytes(StandardCharsets.UTF_8));
+        mm.endTurn(5, 0, 0, 0, 0, 0, loc);
+        mm.startTurn(7);
+        out.write("seven\n".getBytes(StandardCharsets.UTF_8));
+        mm.endTurn(7, 0, 0, 0, 0, 0, loc);
+        mm.endRound();
+        mm.startRound(2);
+        mm.startTurn(5);
+        out.write("five again\n".getBytes(StandardCharsets.UTF_8));
+        mm.endTurn(5, 0, 0, 0, 0, 0, loc);
+        mm.endRound();
+        mm.makeMatchFooter(Team.A, DominationFactor.RESIGNATION, 2, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        gm.writeGame(replay);
+        File log;
+        try (ReplayReader reader = new ReplayReader(replay)) {
+            assertEquals("replay-match0.bclog", reader.getMatchFooter(0).robotLog());
+            log = new File(dir, reader.getMatchFooter(0).robotLog());
+        }
+        replay.deleteOnExit();
+        log.deleteOnExit();
+
+        List<String> records = new ArrayList<>();
+        try (RobotLogReader reader = new RobotLogReader(log)) {
+            reader.read(0, 0, Integer.MAX_VALUE, (round, id, output, length) ->
+                    records.add(round + " " + id + " " + new String(output, 0, length, StandardCharsets.UTF_8)));
+        }
+        assertEquals(3, records.size());
+        assertEquals("1 5 five\n", records.get(0));
+        assertEquals("1 7 seven\n", records.get(1));
+        assertEquals("2 5 five again\n", records.get(2));
+
+        try (RobotLogReader reader = new RobotLogReader(log)) {
+            assertEquals("five\nfive again\n", reader.readString(5, 0, Integer.MAX_VALUE));
+        }
+        try (RobotLogReader reader = new RobotLogReader(log)) {
+            assertEquals("five again\n", reader.readString(0, 2, 2));
+        }
+    }
+
+    @Test
+    public void testNoLog() throws IOException {
+        Config options = TestGameInfo.options();
+        options.setBoolean("bc.server.robot-log", true);
+        GameMaker gm = new GameMaker(info, null, options);
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        gm.makeGameHeader();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337).build());
+        mm.startRound(1);
+        mm.getOut().write("discarded\n".getBytes(StandardCharsets.UTF_8));
+        mm.endRound();
+        mm.makeMatchFooter(Team.A, DominationFactor.RESIGNATION, 1, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        File replay = File.createTempFile("replay", ".bc25");
+        replay.deleteOnExit();
+        gm.writeGame(replay);
+        try (ReplayReader reader = new ReplayReader(replay)) {
+            assertNull(reader.getMatchFooter(0).robotLog());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package battlecode.server;
+
+import org.junit.Ignore;
+
+import java.io.File;
+
+/**
+ * TestGameInfo makes the GameInfo that the server tests write their games
+ * with: org.bananas as team A against org.yellow as team B on honolulu,
+ * with no replay file, and the Config they write them with.
+ */
+@Ignore
+public class TestGameInfo {
+
+    private TestGameInfo() {}
+
+    /**
+     * @return a new GameInfo for bananas against yellow on honolulu
+     */
+    public static GameInfo create() {
+        return create(null);
+    }
+
+    /**
+     * @param saveFile the replay file, or null to not save the game
+     * @return a new GameInfo for bananas against yellow on honolulu
+     */
+    public static GameInfo create(File saveFile) {
+        return new GameInfo(
+                "bananas", "org.bananas", null,
+                "yellow", "org.yellow", null,
+                new String[] {"honolulu"}, saveFile, false
+        );
+    }
+
+    /**
+     * @return the default Config, without reading bc.conf
+     */
+    public static Config options() {
+        return new Config(new String[] {"-c=-"});
+    }
+}
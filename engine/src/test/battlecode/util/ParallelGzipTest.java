@@ -0,0 +1,47 @@
+package battlecode.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelGzipTest {
+    private static byte[] sampleData(int length) {
+        // compressible, but not trivially so
+        byte[] data = new byte[length];
+        Random random = new Random(1337);
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (random.nextInt(16) + (i % 251));
+        }
+        return data;
+    }
+
+    private static byte[] gunzip(byte[] in) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(in)));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] data = sampleData(5 * ParallelGzip.MIN_BLOCK_SIZE + 12345);
+
+        byte[] serial = ParallelGzip.compress(data, 1);
+        byte[] parallel = ParallelGzip.compress(data, 4);
+
+        assertArrayEquals(data, gunzip(serial));
+        assertArrayEquals(data, gunzip(parallel));
+        assertTrue(parallel.length < data.length);
+    }
+
+    @Test
+    public void testSmallInput() throws IOException {
+        assertArrayEquals(new byte[0], gunzip(ParallelGzip.compress(new byte[0], 8)));
+        byte[] data = sampleData(100);
+        assertArrayEquals(data, gunzip(ParallelGzip.compress(data, 8)));
+    }
+}
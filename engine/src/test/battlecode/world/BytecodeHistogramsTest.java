@@ -0,0 +1,80 @@
+package battlecode.world;
+
+import battlecode.common.GameConstants;
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.common.UnitType;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.*;
+
+public class BytecodeHistogramsTest {
+
+    @Test
+    public void testBuckets() {
+        int previous = -1;
+        for (int value = 0; value < 100_000; value++) {
+            int bucket = BytecodeHistograms.bucket(value);
+            assertTrue(bucket == previous || bucket == previous + 1);
+            assertTrue(value <= BytecodeHistograms.bucketTop(bucket));
+            // within 1/16 of the value
+            assertTrue(BytecodeHistograms.bucketTop(bucket) - value <= value / BytecodeHistograms.SUB_BUCKETS);
+            previous = bucket;
+        }
+        assertEquals(Integer.MAX_VALUE, BytecodeHistograms.bucketTop(BytecodeHistograms.bucket(Integer.MAX_VALUE)));
+    }
+
+    @Test
+    public void testHistogram() {
+        BytecodeHistograms.Histogram histogram = new BytecodeHistograms.Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 100, 10_000);
+        }
+        assertEquals(100, histogram.getTurns());
+        assertEquals(5050.0, histogram.getMean(), 1e-9);
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(1, histogram.getTurnsAtLimit());
+        int p50 = histogram.getPercentile(50);
+        assertTrue(p50 >= 5000 && p50 <= 5000 + 5000 / BytecodeHistograms.SUB_BUCKETS);
+        assertEquals(10_000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testTurnsAndWindows() {
+        TestGame game = new TestGame(new TestMapBuilder("test", 0, 0, 10, 10, 1337).build());
+        game.getWorld().spawnRobot(UnitType.SOLDIER, new MapLocation(1, 1), Team.A);
+        game.getWorld().spawnRobot(UnitType.LEVEL_ONE_PAINT_TOWER, new MapLocation(8, 8), Team.B);
+        BytecodeHistograms histograms = game.getWorld().getBytecodeHistograms();
+
+        game.waitRounds(3);
+        histograms.endWindow(3);
+        game.waitRounds(2);
+        histograms.endWindow(5);
+
+        BytecodeHistograms.Histogram soldiers = histograms.getHistogram(Team.A, UnitType.SOLDIER);
+        assertEquals(5, soldiers.getTurns());
+        assertEquals(5, histograms.getHistogram(Team.B, UnitType.LEVEL_ONE_PAINT_TOWER).getTurns());
+        assertEquals(0, histograms.getHistogram(Team.B, UnitType.SOLDIER).getTurns());
+
+        InternalRobot robot = game.getWorld().getRobot(new MapLocation(1, 1));
+        robot.setBytecodesUsed(GameConstants.ROBOT_BYTECODE_LIMIT + 3);
+        histograms.recordTurn(robot);
+        assertEquals(1, soldiers.getTurnsAtLimit());
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        histograms.writeWindowsCsv(new PrintStream(csv));
+        String[] lines = csv.toString().split("\n");
+        assertEquals(BytecodeHistograms.WINDOWS_CSV_HEADER, lines[0]);
+        assertEquals(5, lines.length);
+        assertEquals("1,3,A,SOLDIER,3,0.0,0,0,0,0,0", lines[1]);
+        assertEquals("4,5,B,LEVEL_ONE_PAINT_TOWER,2,0.0,0,0,0,0,0", lines[4]);
+
+        assertEquals(2, histograms.summary().size());
+        String json = histograms.toJson();
+        assertTrue(json, json.startsWith("{\"A\":{\"SOLDIER\":{\"turns\":6,"));
+        assertTrue(json, json.contains("\"B\":{\"LEVEL_ONE_PAINT_TOWER\":{\"turns\":5,"));
+    }
+}
@@ -0,0 +1,121 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import battlecode.instrumenter.inject.ObjectMethods;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.*;
+
+public class PhaseTimerTest {
+
+    private static void spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {}
+    }
+
+    @Test
+    public void testRounds() {
+        PhaseTimer timer = new PhaseTimer();
+        for (int round = 0; round < 3; round++) {
+            timer.startRound(10 * (round + 1));
+            long start = System.nanoTime();
+            spin(100_000);
+            timer.addSince(PhaseTimer.Phase.BEGIN_ROUND, start);
+            for (int robot = 0; robot < 2; robot++) {
+                timer.startTurn();
+                timer.startRobot();
+                spin(100_000);
+                long apiStart = System.nanoTime();
+                spin(100_000);
+                timer.addApiTime(apiStart);
+                timer.endRobot();
+                timer.endTurn();
+            }
+            start = System.nanoTime();
+            long encodingStart = System.nanoTime();
+            spin(100_000);
+            timer.addSince(PhaseTimer.Phase.ROUND_ENCODING, encodingStart);
+            timer.addSince(PhaseTimer.Phase.END_ROUND, start);
+            timer.endRound();
+        }
+
+        assertEquals(3, timer.getRounds());
+        assertEquals(6, timer.getTurns());
+        long round = timer.getTotalNanos(PhaseTimer.Phase.ROUND);
+        long parts = 0;
+        for (PhaseTimer.Phase phase : PhaseTimer.Phase.values()) {
+            if (phase != PhaseTimer.Phase.ROUND) {
+                parts += timer.getTotalNanos(phase);
+            }
+        }
+        assertTrue(parts <= round);
+        assertTrue(timer.getTotalNanos(PhaseTimer.Phase.ROBOT_CODE) >= 6 * 100_000);
+        assertTrue(timer.getTotalNanos(PhaseTimer.Phase.ENGINE_API) >= 6 * 100_000);
+        assertTrue(timer.getTotalNanos(PhaseTimer.Phase.ROUND_ENCODING) >= 3 * 100_000);
+        // encoding isn't counted twice
+        assertTrue(timer.getTotalNanos(PhaseTimer.Phase.END_ROUND) < 3 * 100_000);
+
+        String json = timer.toJson();
+        assertTrue(json.startsWith("{\"rounds\":3,\"turns\":6,\"phases\":{\"round\":{\"count\":3,"));
+        assertTrue(json.contains("\"robotCode\":{\"count\":3,"));
+        assertTrue(json.contains("\"replayFinalization\":{\"count\":0,"));
+
+        assertEquals(20, timer.getRobotCount(1));
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        timer.writeRoundsCsv(new PrintStream(csv));
+        String[] lines = csv.toString().lines().toArray(String[]::new);
+        assertEquals(4, lines.length);
+        assertEquals("round,robots,roundNanos,beginRoundNanos,robotCodeNanos,engineApiNanos,turnProcessingNanos,"
+                + "endRoundNanos,roundEncodingNanos", lines[0]);
+        assertTrue(lines[3].startsWith("3,30," + timer.getRoundNanos(2, PhaseTimer.Phase.ROUND) + ","));
+    }
+
+    @Test
+    public void testReplayFinalization() {
+        PhaseTimer timer = new PhaseTimer();
+        timer.recordSince(PhaseTimer.Phase.REPLAY_FINALIZATION, System.nanoTime());
+        assertEquals(0, timer.getRounds());
+        assertTrue(timer.toJson().contains("\"replayFinalization\":{\"count\":1,"));
+    }
+
+    @Test
+    public void testTimedRobotController() throws GameActionException {
+        TestGame game = new TestGame(new TestMapBuilder("test", 0, 0, 10, 10, 1337).build());
+        int id = game.getWorld().spawnRobot(UnitType.SOLDIER, new MapLocation(1, 1), Team.A);
+        PhaseTimer timer = new PhaseTimer();
+        RobotController rc = new TimedRobotController(game.getBot(id).getController(), timer);
+
+        timer.startTurn();
+        timer.startRobot();
+        assertEquals(id, rc.getID());
+        assertEquals(new MapLocation(1, 1), rc.getLocation());
+        try {
+            rc.senseMapInfo(new MapLocation(9, 9));
+            fail("the location is out of vision range");
+        } catch (GameActionException e) {
+            assertEquals(GameActionExceptionType.CANT_SENSE_THAT, e.getType());
+        }
+        timer.endRobot();
+        assertTrue(timer.getTurnEngineApiNanos() > 0);
+    }
+
+    @Test
+    public void testTimedRobotControllerObjectMethods() throws NoSuchMethodException {
+        TestGame game = new TestGame(new TestMapBuilder("test", 0, 0, 10, 10, 1337).build());
+        int id = game.getWorld().spawnRobot(UnitType.SOLDIER, new MapLocation(1, 1), Team.A);
+        RobotController plain = game.getBot(id).getController();
+        RobotController rc = new TimedRobotController(plain, new PhaseTimer());
+
+        // timing mustn't change what robot code sees
+        assertTrue(rc.equals(rc));
+        assertFalse(rc.equals(plain));
+        assertTrue(ObjectMethods.toString(plain).matches("object\\d+"));
+        assertTrue(ObjectMethods.toString(rc).matches("object\\d+"));
+        assertEquals(ObjectMethods.toString(rc), ObjectMethods.toString(rc));
+        assertEquals(id, ObjectMethods.hashCode(rc));
+        assertEquals(ObjectMethods.hashCode(plain), ObjectMethods.hashCode(rc));
+    }
+}
@@ -304,4 +304,103 @@ public class RobotControllerTest {
     //         }
     //     });
     // }
-}
\ No newline at end of file
+
+    @Test
+    public void testPackedSensing() throws GameActionException {
+        TestGame game = new TestGame(new TestMapBuilder("test", 0, 0, 10, 10, 1337).build());
+        GameWorld world = game.getWorld();
+        final int soldier = world.spawnRobot(UnitType.SOLDIER, new MapLocation(2, 3), Team.A);
+        world.spawnRobot(UnitType.MOPPER, new MapLocation(4, 4), Team.A);
+        world.spawnRobot(UnitType.SPLASHER, new MapLocation(2, 6), Team.B);
+        world.spawnRobot(UnitType.SPLASHER, new MapLocation(9, 9), Team.B);
+        world.setPaint(new MapLocation(3, 3), 4);
+        world.setPaint(new MapLocation(1, 1), 1);
+        world.getmarkersArray(Team.A)[world.locationToIndex(new MapLocation(2, 5))] = 2;
+
+        game.round((id, rc) -> {
+            if (id != soldier)
+                return;
+            int[] tiles = new int[PackedInfo.MAX_TILES];
+            MapInfo[] infos = rc.senseNearbyMapInfos();
+            assertEquals(infos.length, rc.senseNearbyTileData(tiles));
+            for (int i = 0; i < infos.length; i++) {
+                int tile = tiles[i];
+                assertEquals(infos[i].getMapLocation(), new MapLocation(
+                        (tile >> PackedInfo.X_SHIFT) & PackedInfo.COORDINATE_MASK,
+                        (tile >> PackedInfo.Y_SHIFT) & PackedInfo.COORDINATE_MASK));
+                assertEquals(infos[i].getPaint().ordinal(), (tile >> PackedInfo.TILE_PAINT_SHIFT) & PackedInfo.PAINT_TYPE_MASK);
+                assertEquals(infos[i].getMark().ordinal(), (tile >> PackedInfo.TILE_MARK_SHIFT) & PackedInfo.PAINT_TYPE_MASK);
+                assertEquals(infos[i].isWall(), (tile & PackedInfo.TILE_WALL) != 0);
+                assertEquals(infos[i].hasRuin(), (tile & PackedInfo.TILE_RUIN) != 0);
+                assertEquals(infos[i].isPassable(), (tile & PackedInfo.TILE_PASSABLE) != 0);
+            }
+
+            int[] robots = new int[PackedInfo.ROBOT_ARRAY_LENGTH];
+            assertEquals(2, rc.senseNearbyRobotData(robots));
+            assertEquals(2, rc.senseNearbyRobots().length);
+            RobotInfo splasher = rc.senseRobotAtLocation(new MapLocation(2, 6));
+            assertEquals(splasher.getID(), robots[PackedInfo.ROBOT_ID]);
+            int state = robots[PackedInfo.ROBOT_STATE];
+            assertEquals(2, (state >> PackedInfo.X_SHIFT) & PackedInfo.COORDINATE_MASK);
+            assertEquals(6, (state >> PackedInfo.Y_SHIFT) & PackedInfo.COORDINATE_MASK);
+            assertEquals(0, state & PackedInfo.ROBOT_ALLY);
+            assertEquals(UnitType.SPLASHER.ordinal(), (state >> PackedInfo.ROBOT_TYPE_SHIFT) & PackedInfo.ROBOT_TYPE_MASK);
+            assertEquals(splasher.getHealth(), robots[PackedInfo.ROBOT_HEALTH]);
+            assertEquals(splasher.getPaintAmount(), robots[PackedInfo.ROBOT_PAINT]);
+            assertNotEquals(0, robots[PackedInfo.ROBOT_INTS + PackedInfo.ROBOT_STATE] & PackedInfo.ROBOT_ALLY);
+
+            try {
+                rc.senseNearbyTileData(new int[PackedInfo.MAX_TILES - 1]);
+                fail("a short array should be rejected");
+            } catch (GameActionException e) {
+                assertEquals(GameActionExceptionType.CANT_DO_THAT, e.getType());
+            }
+        });
+    }
+
+    @Test
+    public void testPackedSensingFullVision() throws GameActionException {
+        TestGame game = new TestGame(new TestMapBuilder("test", 0, 0, 20, 20, 1337).build());
+        final int soldier = game.getWorld().spawnRobot(UnitType.SOLDIER, new MapLocation(10, 10), Team.A);
+        game.round((id, rc) -> {
+            if (id == soldier)
+                assertEquals(PackedInfo.MAX_TILES, rc.senseNearbyTileData(new int[PackedInfo.MAX_TILES]));
+        });
+    }
+
+    @Test
+    public void testSharedMapInfos() throws GameActionException {
+        TestGame game = new TestGame(new TestMapBuilder("test", 0, 0, 10, 10, 1337).build());
+        GameWorld world = game.getWorld();
+        MapLocation loc = new MapLocation(3, 3);
+        world.spawnRobot(UnitType.SOLDIER, new MapLocation(2, 2), Team.A);
+        world.spawnRobot(UnitType.MOPPER, new MapLocation(4, 4), Team.A);
+        world.spawnRobot(UnitType.SOLDIER, new MapLocation(5, 5), Team.B);
+        world.setPaint(loc, 1);
+
+        MapInfo[] sensed = new MapInfo[3];
+        game.round((id, rc) -> {
+            int i = rc.getTeam() == Team.B ? 2 : rc.getType() == UnitType.SOLDIER ? 0 : 1;
+            sensed[i] = rc.senseMapInfo(loc);
+        });
+        assertSame(sensed[0], sensed[1]);
+        assertNotSame(sensed[0], sensed[2]);
+        assertEquals(PaintType.ALLY_PRIMARY, sensed[0].getPaint());
+        assertEquals(PaintType.ENEMY_PRIMARY, sensed[2].getPaint());
+
+        world.setPaint(loc, 4);
+        MapInfo repainted = world.getMapInfo(Team.A, loc);
+        assertNotSame(sensed[0], repainted);
+        assertEquals(PaintType.ENEMY_SECONDARY, repainted.getPaint());
+        assertSame(repainted, world.getMapInfo(Team.A, loc));
+
+        // a mark only changes what the marking team senses
+        MapInfo enemyView = world.getMapInfo(Team.B, loc);
+        world.setMarker(Team.A, loc, 2);
+        MapInfo marked = world.getMapInfo(Team.A, loc);
+        assertEquals(PaintType.ALLY_SECONDARY, marked.getMark());
+        assertSame(enemyView, world.getMapInfo(Team.B, loc));
+        assertEquals(PaintType.EMPTY, enemyView.getMark());
+        assertSame(marked, world.getMapInfo(Team.A, loc));
+    }
+}
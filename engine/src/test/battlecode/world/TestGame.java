@@ -34,11 +34,19 @@ public class TestGame {
      * @param map the game map
      */
     public TestGame(LiveMap map) {
-        world = new GameWorld(map,
-                new TestControlProvider(),
-                // this is a hack.
-                // there should be a cleaner way to do this?
-                Mockito.mock(GameMaker.MatchMaker.class));
+        // this is a hack.
+        // there should be a cleaner way to do this?
+        this(map, Mockito.mock(GameMaker.MatchMaker.class));
+    }
+
+    /**
+     * Creates a test game with the given map that writes to the given MatchMaker.
+     *
+     * @param map        the game map
+     * @param matchMaker the MatchMaker to record the game with
+     */
+    public TestGame(LiveMap map, GameMaker.MatchMaker matchMaker) {
+        world = new GameWorld(map, new TestControlProvider(), matchMaker);
     }
 
     /**
@@ -0,0 +1,68 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.common.UnitType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TurnWatchdogTest {
+
+    private static final long MILLI = 1_000_000;
+
+    @Test
+    public void testTotalsAndSlowTurns() {
+        TestGame game = new TestGame(new TestMapBuilder("test", 0, 0, 10, 10, 1337).build());
+        InternalRobot a = game.getBot(game.getWorld().spawnRobot(UnitType.SOLDIER, new MapLocation(1, 1), Team.A));
+        InternalRobot b = game.getBot(game.getWorld().spawnRobot(UnitType.MOPPER, new MapLocation(8, 8), Team.B));
+
+        List<String> log = new ArrayList<>();
+        TurnWatchdog watchdog = new TurnWatchdog(10 * MILLI, 2 * MILLI, log::add);
+        watchdog.recordTurn(a, 1, MILLI, MILLI);
+        watchdog.recordTurn(b, 1, MILLI, 3 * MILLI);
+        watchdog.recordTurn(a, 2, 11 * MILLI, 0);
+        watchdog.recordTurn(b, 2, MILLI, MILLI);
+
+        assertEquals(2, log.size());
+        assertTrue(log.get(0), log.get(0).startsWith("Slow turn: B #" + b.getID() + " (MOPPER) in round 1"));
+        assertTrue(log.get(1), log.get(1).contains("took 11.00 ms in its own code and 0.00 ms in engine calls"));
+
+        TurnWatchdog.TeamTotals totals = watchdog.getTotals(Team.A);
+        assertEquals(2, totals.turns);
+        assertEquals(12 * MILLI, totals.robotCodeNanos);
+        assertEquals(MILLI, totals.engineApiNanos);
+        assertEquals(11 * MILLI, totals.maxRobotCodeNanos);
+        assertEquals(1, totals.slowTurns);
+        assertEquals(1, totals.slowTurnsByRobot.get(a.getID()));
+
+        totals = watchdog.getTotals(Team.B);
+        assertEquals(2, totals.turns);
+        assertEquals(3 * MILLI, totals.maxEngineApiNanos);
+        assertEquals(1, totals.slowTurns);
+
+        assertEquals("Team A: 2 turns, 12.0 ms in robot code (at most 11.00 ms in a turn), " +
+                "1.0 ms in engine calls (at most 1.00 ms in a turn), 1 slow turns (#" + a.getID() + ": 1)",
+                watchdog.summary(Team.A));
+    }
+
+    @Test
+    public void testLogLimit() {
+        TestGame game = new TestGame(new TestMapBuilder("test", 0, 0, 10, 10, 1337).build());
+        InternalRobot robot = game.getBot(game.getWorld().spawnRobot(UnitType.SOLDIER, new MapLocation(1, 1), Team.A));
+
+        List<String> log = new ArrayList<>();
+        // only engine calls are watched
+        TurnWatchdog watchdog = new TurnWatchdog(0, MILLI, log::add);
+        for (int round = 1; round <= 2 * TurnWatchdog.MAX_LOGGED_TURNS; round++) {
+            watchdog.recordTurn(robot, round, 100 * MILLI, 2 * MILLI);
+        }
+
+        assertEquals(TurnWatchdog.MAX_LOGGED_TURNS + 1, log.size());
+        assertEquals(2 * TurnWatchdog.MAX_LOGGED_TURNS, watchdog.getTotals(Team.A).slowTurns);
+        assertEquals(0, watchdog.getTotals(Team.B).turns);
+    }
+}
@@ -0,0 +1,210 @@
+package stressbot;
+
+import battlecode.common.*;
+
+import java.util.Random;
+
+
+/**
+ * A player for load testing the engine, not for winning. It never fights,
+ * and spends everything it has on growing its robot count: towers build
+ * units as fast as they can, soldiers turn every ruin they find into
+ * another tower, paint towers first since paint runs out before chips do,
+ * and spread their team's paint so that robots can stand on it without
+ * losing paint. Every robot spends whatever bytecodes it has left each turn
+ * sensing and messaging.
+ */
+public class RobotPlayer {
+
+    /**
+     * The bytecodes to keep back for ending the turn.
+     */
+    static final int BYTECODE_RESERVE = 500;
+
+    /**
+     * The paint a soldier keeps back rather than spending it on painting
+     * new tiles.
+     */
+    static final int SOLDIER_PAINT_RESERVE = 50;
+
+    /**
+     * The chips a team needs before it builds a paint tower rather than a
+     * money tower.
+     */
+    static final int PAINT_TOWER_CHIPS = 1500;
+
+    static final Random rng = new Random(6147);
+
+    /** Array containing all the possible movement directions. */
+    static final Direction[] directions = {
+        Direction.NORTH,
+        Direction.NORTHEAST,
+        Direction.EAST,
+        Direction.SOUTHEAST,
+        Direction.SOUTH,
+        Direction.SOUTHWEST,
+        Direction.WEST,
+        Direction.NORTHWEST,
+    };
+
+    /** The units towers build, in turn; moppers cost the least paint. */
+    static final UnitType[] unitTypes = {UnitType.SOLDIER, UnitType.MOPPER, UnitType.MOPPER};
+
+    static int nextUnitType = 0;
+
+    /** The towers soldiers build. */
+    static final UnitType[] towerTypes = {UnitType.LEVEL_ONE_PAINT_TOWER, UnitType.LEVEL_ONE_MONEY_TOWER};
+
+    @SuppressWarnings("unused")
+    public static void run(RobotController rc) throws GameActionException {
+        while (true) {
+            try {
+                switch (rc.getType()) {
+                    case SOLDIER: runSoldier(rc); break;
+                    case MOPPER:
+                    case SPLASHER: runUnit(rc); break;
+                    default: runTower(rc); break;
+                }
+                hammer(rc);
+            } catch (GameActionException e) {
+                // keep going; the point is to keep the engine busy
+            } finally {
+                Clock.yield();
+            }
+        }
+    }
+
+    /**
+     * Build a unit around the tower, on the team's paint if there is room.
+     */
+    public static void runTower(RobotController rc) throws GameActionException {
+        if (!rc.isActionReady()) {
+            return;
+        }
+        UnitType type = unitTypes[nextUnitType];
+        MapLocation fallback = null;
+        for (MapLocation loc : rc.getAllLocationsWithinRadiusSquared(rc.getLocation(), GameConstants.BUILD_ROBOT_RADIUS_SQUARED)) {
+            if (rc.canBuildRobot(type, loc)) {
+                if (rc.senseMapInfo(loc).getPaint().isAlly()) {
+                    fallback = loc;
+                    break;
+                }
+                if (fallback == null) {
+                    fallback = loc;
+                }
+            }
+        }
+        if (fallback != null) {
+            rc.buildRobot(type, fallback);
+            nextUnitType = (nextUnitType + 1) % unitTypes.length;
+        }
+    }
+
+    /**
+     * Build towers on ruins, or spread the team's paint.
+     */
+    public static void runSoldier(RobotController rc) throws GameActionException {
+        MapLocation[] ruins = rc.senseNearbyRuins(-1);
+        for (MapLocation ruin : ruins) {
+            if (rc.canSenseRobotAtLocation(ruin)) {
+                continue;
+            }
+            // every tile of a marked pattern has a mark, so only mark unmarked ruins
+            UnitType towerType = rc.getChips() >= PAINT_TOWER_CHIPS
+                    ? UnitType.LEVEL_ONE_PAINT_TOWER : UnitType.LEVEL_ONE_MONEY_TOWER;
+            MapLocation patternTile = ruin.add(Direction.NORTH);
+            if (rc.canSenseLocation(patternTile) && rc.senseMapInfo(patternTile).getMark() == PaintType.EMPTY
+                    && rc.canMarkTowerPattern(towerType, ruin)) {
+                rc.markTowerPattern(towerType, ruin);
+            }
+            // paint the pattern, walking towards the tiles that are out of reach
+            MapLocation target = ruin;
+            for (MapInfo tile : rc.senseNearbyMapInfos(ruin, 8)) {
+                if (tile.getMark() != PaintType.EMPTY && tile.getMark() != tile.getPaint()) {
+                    if (rc.canAttack(tile.getMapLocation())) {
+                        rc.attack(tile.getMapLocation(), tile.getMark() == PaintType.ALLY_SECONDARY);
+                        target = ruin;
+                        break;
+                    }
+                    target = tile.getMapLocation();
+                }
+            }
+            moveTowards(rc, target);
+            for (UnitType type : towerTypes) {
+                if (rc.canCompleteTowerPattern(type, ruin)) {
+                    rc.completeTowerPattern(type, ruin);
+                }
+            }
+            return;
+        }
+
+        Direction dir = directions[rng.nextInt(directions.length)];
+        MapLocation next = rc.getLocation().add(dir);
+        if (rc.getPaint() > SOLDIER_PAINT_RESERVE && rc.canMove(dir)
+                && rc.senseMapInfo(next).getPaint() == PaintType.EMPTY && rc.canAttack(next)) {
+            rc.attack(next);
+        }
+        moveOnAllyPaint(rc, dir);
+    }
+
+    /**
+     * Move towards loc, or next to it if it can't be stood on.
+     */
+    public static void moveTowards(RobotController rc, MapLocation loc) throws GameActionException {
+        if (rc.getLocation().isAdjacentTo(loc)) {
+            return;
+        }
+        Direction dir = rc.getLocation().directionTo(loc);
+        for (Direction d : new Direction[] {dir, dir.rotateLeft(), dir.rotateRight()}) {
+            if (rc.canMove(d)) {
+                rc.move(d);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wander over the team's paint, where robots don't lose any.
+     */
+    public static void runUnit(RobotController rc) throws GameActionException {
+        moveOnAllyPaint(rc, directions[rng.nextInt(directions.length)]);
+    }
+
+    /**
+     * Move in dir if the robot would end up on the team's paint, or if it
+     * isn't on the team's paint now.
+     */
+    public static void moveOnAllyPaint(RobotController rc, Direction dir) throws GameActionException {
+        if (rc.canMove(dir) && (rc.senseMapInfo(rc.getLocation().add(dir)).getPaint().isAlly()
+                || !rc.senseMapInfo(rc.getLocation()).getPaint().isAlly())) {
+            rc.move(dir);
+        }
+    }
+
+    /**
+     * Spend the rest of the turn's bytecodes calling sensing and messaging
+     * methods.
+     */
+    public static void hammer(RobotController rc) throws GameActionException {
+        int round = rc.getRoundNum();
+        while (Clock.getBytecodesLeft() > BYTECODE_RESERVE) {
+            RobotInfo[] robots = rc.senseNearbyRobots();
+            if (Clock.getBytecodesLeft() <= BYTECODE_RESERVE) {
+                break;
+            }
+            rc.senseNearbyMapInfos();
+            if (Clock.getBytecodesLeft() <= BYTECODE_RESERVE) {
+                break;
+            }
+            rc.readMessages(-1);
+            for (RobotInfo robot : robots) {
+                if (Clock.getBytecodesLeft() <= BYTECODE_RESERVE) {
+                    break;
+                }
+                if (robot.team == rc.getTeam() && rc.canSendMessage(robot.location, round)) {
+                    rc.sendMessage(robot.location, round);
+                }
+            }
+        }
+    }
+}